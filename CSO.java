@@ -5,28 +5,44 @@
  * History:     
  *  Date         Author              Changes
  *  09.29.2021   lghoward@uwm.edu    initial
+ *  10.17.2026   agent@local         bounded ingress with overflow policies
 **/
 
 package edu.uwm.basecso;
 
+import java.util.Collection;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Abstract base class representing a CSO.
  * Receiving and storing messages is implemented here,
  * but processing the messages must be implemented by a subclass.
  * 
+ * The message queue is bounded. When it is full the OverflowPolicy decides whether
+ * a new message waits, replaces the oldest message, or is dropped or rejected, and
+ * receiveMessage reports whether the message was queued.
+ * 
  * @author Lonny Howard - lghoward@uwm.edu
  * @version 0.1.0
  */
 public abstract class CSO implements Messageable {
+    public static final int DEFAULT_INGRESS_CAPACITY = 100;
+    public static final long DEFAULT_BLOCK_TIMEOUT_MILLIS = 10;
+
     protected CyberspatialLocation cyberspatialLocation;
     protected final SituationAssessmentService situationAssessmentService;
     protected final PlanGenerationService planGenerationService;
     protected final PlanExecutionService planExecutionService;
     protected BlockingQueue<CSOMessage> messages;
     private final long identifier;
+    private final int ingressCapacity;
+    private final OverflowPolicy overflowPolicy;
+    private volatile long blockTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_BLOCK_TIMEOUT_MILLIS);
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
 
     /**
      * Constructor of the CSO object. It is expected that subclasses will call super.
@@ -37,6 +53,20 @@ public abstract class CSO implements Messageable {
      * @param pes PlanExecutionService to provide execution of a plan. a subclass will use as needed.
      */
     public CSO(long id, CyberspatialLocation location, SituationAssessmentService sas, PlanGenerationService pgs, PlanExecutionService pes) {
+        this(id, location, sas, pgs, pes, DEFAULT_INGRESS_CAPACITY, OverflowPolicy.DROP_NEWEST);
+    }
+
+    /**
+     * Constructor of the CSO object with a configured message queue. It is expected that subclasses will call super.
+     * @param id long identifier for the instance
+     * @param location CyberspatialLocation initial cyberspatial location for the instance, can only be modified through messages or a result of the behavior in fulfilling an order
+     * @param sas SituationAssessmentService to provide situational assessment. a subclass will use as needed.
+     * @param pgs PlanGenerationService to provide generate a plan. a subclass will use as needed.
+     * @param pes PlanExecutionService to provide execution of a plan. a subclass will use as needed.
+     * @param ingressCapacity int maximum number of messages waiting to be processed
+     * @param overflowPolicy OverflowPolicy applied when a message arrives and the queue is full
+     */
+    public CSO(long id, CyberspatialLocation location, SituationAssessmentService sas, PlanGenerationService pgs, PlanExecutionService pes, int ingressCapacity, OverflowPolicy overflowPolicy) {
 
 	//assign
         this.cyberspatialLocation = location;
@@ -45,8 +75,10 @@ public abstract class CSO implements Messageable {
         this.planExecutionService = pes;
         
         this.identifier = id;
+        this.ingressCapacity = ingressCapacity;
+        this.overflowPolicy = overflowPolicy;
         
-        this.messages = new ArrayBlockingQueue<>(100);
+        this.messages = new ArrayBlockingQueue<>(ingressCapacity);
     }
     
     /**
@@ -62,13 +94,63 @@ public abstract class CSO implements Messageable {
     /**
      * Function to receive a message from a different object. Messages will be stored and acted upon the next time processMessages is called.
      * @param message CSOMessage that wraps a payload with an implementation specific order
-     * @return boolean indicating whether the message was accepted. 
+     * @return boolean indicating whether the message was accepted. false means it was dropped or rejected by the OverflowPolicy and the sender should slow down.
      */
     public boolean receiveMessage(CSOMessage message) {
         //enqueue message
-        messages.offer(message);
+        if (messages.offer(message)) {
+            return true; //perhaps could be a Future if the caller would want to wait on the result rather than sending a new message with the results 
+        }
+        
+        switch (overflowPolicy) {
+        case BLOCK:
+            try {
+                if (messages.offer(message, blockTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                    return true;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            
+            rejectedCount.incrementAndGet();
+            return false;
+            
+        case DROP_OLDEST:
+            while (!messages.offer(message)) {
+                if (messages.poll() != null) {
+                    droppedCount.incrementAndGet();
+                }
+            }
+            
+            return true;
+            
+        case DROP_NEWEST:
+            droppedCount.incrementAndGet();
+            return false;
+            
+        case REJECT:
+        default:
+            rejectedCount.incrementAndGet();
+            return false;
+        }
+    }
+    
+    /**
+     * Function to receive a batch of messages, such as all the reports from one simulation tick.
+     * Each message is handled as if it was passed to receiveMessage.
+     * @param batch Collection of CSOMessages in the order they should be processed
+     * @return int number of messages that were accepted
+     */
+    public int receiveMessages(Collection<CSOMessage> batch) {
+        int accepted = 0;
+        
+        for (CSOMessage message : batch) {
+            if (receiveMessage(message)) {
+                accepted++;
+            }
+        }
         
-        return true; //perhaps could be a Future if the caller would want to wait on the result rather than sending a new message with the results 
+        return accepted;
     }
     
     protected void sendMessage(CSOMessage message) {
@@ -87,6 +169,43 @@ public abstract class CSO implements Messageable {
        return identifier;
     }
     
+    /**
+     * @return int maximum number of messages waiting to be processed
+     */
+    public int getIngressCapacity() {
+        return ingressCapacity;
+    }
+    
+    /**
+     * @return OverflowPolicy applied when the message queue is full
+     */
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+    
+    /**
+     * Sets how long a sender waits for room when the OverflowPolicy is BLOCK.
+     * @param timeout long amount of time to wait
+     * @param unit TimeUnit of the timeout
+     */
+    public void setBlockTimeout(long timeout, TimeUnit unit) {
+        this.blockTimeoutNanos = unit.toNanos(timeout);
+    }
+    
+    /**
+     * @return long number of messages discarded by DROP_OLDEST or DROP_NEWEST
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+    
+    /**
+     * @return long number of messages turned away by REJECT or a BLOCK timeout
+     */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
     /**
      * Allows access to the current cyberspatial location
      * @return current CyberspatialLocation location
@@ -0,0 +1,83 @@
+/**
+ * Title: CSOClock.java
+ * Function:
+ * Monotonic nanosecond clock for message timestamps.
+ * History:
+ *  Date         Author              Changes
+ *  10.17.2026   agent@local         initial
+**/
+
+package edu.uwm.basecso;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The clock used for the timestamps of a CSOMessage and CSOPayload.
+ * 
+ * Timestamps are System.nanoTime() values: they never go backwards and have nanosecond resolution,
+ * so they can be subtracted to measure latency, but they only mean something within one JVM.
+ * They are converted to wall clock time only where they leave the process, such as when they are
+ * shown to a person or written to a file, using an offset taken once when the class is loaded.
+ * 
+ * @author agent
+ */
+public final class CSOClock {
+    private static final long EPOCH_OFFSET_NANOS = epochNanos(Instant.now()) - System.nanoTime();
+
+    private CSOClock() {
+    }
+
+    /**
+     * @return long current time in nanoseconds on the monotonic clock
+     */
+    public static long nanoTime() {
+        return System.nanoTime();
+    }
+
+    /**
+     * @param nanos long time on the monotonic clock
+     * @return long nanoseconds since the epoch at that time
+     */
+    public static long toEpochNanos(long nanos) {
+        return nanos + EPOCH_OFFSET_NANOS;
+    }
+
+    /**
+     * @param nanos long time on the monotonic clock
+     * @return long milliseconds since the epoch at that time
+     */
+    public static long toEpochMillis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(toEpochNanos(nanos));
+    }
+
+    /**
+     * @param nanos long time on the monotonic clock
+     * @return Instant on the wall clock at that time
+     */
+    public static Instant toInstant(long nanos) {
+        long epochNanos = toEpochNanos(nanos);
+        return Instant.ofEpochSecond(Math.floorDiv(epochNanos, 1_000_000_000L), Math.floorMod(epochNanos, 1_000_000_000L));
+    }
+
+    /**
+     * @param epochNanos long nanoseconds since the epoch
+     * @return long the same time on the monotonic clock
+     */
+    public static long fromEpochNanos(long epochNanos) {
+        return epochNanos - EPOCH_OFFSET_NANOS;
+    }
+
+    /**
+     * @param epochMillis long milliseconds since the epoch
+     * @return long the same time on the monotonic clock
+     */
+    public static long fromEpochMillis(long epochMillis) {
+        return fromEpochNanos(TimeUnit.MILLISECONDS.toNanos(epochMillis));
+    }
+
+    private static long epochNanos(Instant instant) {
+        return instant.getEpochSecond() * 1_000_000_000L + instant.getNano();
+    }
+
+}
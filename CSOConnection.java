@@ -0,0 +1,286 @@
+/**
+ * Title: CSOConnection.java
+ * Function:
+ * One socket between two CSOTransports.
+ * History:
+ *  Date         Author              Changes
+ *  10.17.2026   agent@local         initial
+**/
+
+package edu.uwm.basecso;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A connection between this process and another, made by a CSOTransport either by connecting
+ * or by accepting. Objects on the other side are reached through the proxy Messageables
+ * returned by remote(): a message given to a proxy is queued, encoded with the CSOMessageCodec
+ * and written by the transport's event loop together with every other message queued since its last write.
+ *
+ * Each message on the socket is a four byte length followed by the encoded message.
+ * A message read from the socket is given to the exported object its receiver identifier names,
+ * on the event loop thread, with a proxy on this connection as its sender, so replies find their way back.
+ *
+ * @author agent
+ */
+public final class CSOConnection {
+    private final CSOTransport transport;
+    final SocketChannel channel;
+    final CSOMessageCodec codec;
+    final ByteBuffer readBuffer;
+    final ByteBuffer writeBuffer;
+    private final ConcurrentLinkedQueue<CSOMessage> outbound = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final HashMap<Long, Remote> remotes = new HashMap<>();
+    private final AtomicLong sentCount = new AtomicLong();
+    private final AtomicLong receivedCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong undeliveredCount = new AtomicLong();
+    SelectionKey key;
+    private volatile boolean closed = false;
+
+    CSOConnection(CSOTransport transport, SocketChannel channel, OrderCodecRegistry registry, int bufferBytes) {
+        this.transport = transport;
+        this.channel = channel;
+        this.codec = new CSOMessageCodec(registry, this::remote, transport::exported);
+        this.readBuffer = ByteBuffer.allocateDirect(bufferBytes);
+        this.writeBuffer = ByteBuffer.allocateDirect(bufferBytes);
+    }
+
+    /**
+     * Gets a proxy for an object on the other side of the connection.
+     *
+     * @param identifier long identifier of the remote object
+     * @return Messageable that sends whatever it receives to the remote object
+     */
+    public Messageable remote(long identifier) {
+        synchronized (remotes) {
+            return remotes.computeIfAbsent(identifier, Remote::new);
+        }
+    }
+
+    /**
+     * @return SocketAddress of the other side, or null if it cannot be found
+     */
+    public SocketAddress getRemoteAddress() {
+        try {
+            return channel.getRemoteAddress();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * @return long number of messages written to the socket
+     */
+    public long getSentCount() {
+        return sentCount.get();
+    }
+
+    /**
+     * @return long number of messages read from the socket
+     */
+    public long getReceivedCount() {
+        return receivedCount.get();
+    }
+
+    /**
+     * @return long number of messages turned away because the connection was closed or too far behind
+     */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    /**
+     * @return long number of messages read from the socket for an object that is not exported
+     *         or that the exported object turned away
+     */
+    public long getUndeliveredCount() {
+        return undeliveredCount.get();
+    }
+
+    /**
+     * Closes the connection. Queued messages that have not been written are lost.
+     */
+    public void close() {
+        transport.close(this);
+    }
+
+    boolean enqueue(CSOMessage message) {
+        int count;
+
+        // claim a place in the queue only while it is under the limit, however many threads send at once
+        do {
+            count = queued.get();
+
+            if (closed || count >= transport.getMaxQueued()) {
+                rejectedCount.incrementAndGet();
+                return false;
+            }
+        } while (!queued.compareAndSet(count, count + 1));
+
+        outbound.offer(message);
+
+        // only the first message since the last flush has to wake the event loop
+        if (flushScheduled.compareAndSet(false, true)) {
+            transport.scheduleFlush(this);
+        }
+
+        return true;
+    }
+
+    /**
+     * Encodes queued messages and writes them, on the event loop thread.
+     *
+     * @return boolean false if the socket is full and the rest must wait until it is writable
+     * @throws IOException if the socket cannot be written
+     */
+    boolean flush() throws IOException {
+        flushScheduled.set(false);
+
+        while (true) {
+            if (writeBuffer.position() > 0 || fill()) {
+                writeBuffer.flip();
+                channel.write(writeBuffer);
+
+                if (writeBuffer.hasRemaining()) {
+                    writeBuffer.compact();
+                    return false;
+                }
+
+                writeBuffer.clear();
+            } else {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Reads whatever the socket has and delivers every complete message, on the event loop thread.
+     *
+     * @return boolean false once the other side has closed the connection
+     * @throws IOException if the socket cannot be read or a message is too long
+     */
+    boolean read() throws IOException {
+        int read = channel.read(readBuffer);
+
+        readBuffer.flip();
+
+        while (readBuffer.remaining() >= Integer.BYTES) {
+            int length = readBuffer.getInt(readBuffer.position());
+
+            if (length < 0 || length > readBuffer.capacity() - Integer.BYTES) {
+                throw new IOException("Message length out of range: " + length);
+            }
+
+            if (readBuffer.remaining() < Integer.BYTES + length) {
+                break;
+            }
+
+            int end = readBuffer.position() + Integer.BYTES + length;
+            int limit = readBuffer.limit();
+            readBuffer.position(readBuffer.position() + Integer.BYTES).limit(end);
+
+            try {
+                deliver(codec.decode(readBuffer));
+            } catch (RuntimeException e) {
+                transport.warn("Could not read a message from " + getRemoteAddress() + ": " + e);
+            }
+
+            readBuffer.limit(limit).position(end);
+        }
+
+        readBuffer.compact();
+
+        return read >= 0;
+    }
+
+    boolean hasQueued() {
+        return !outbound.isEmpty();
+    }
+
+    void markClosed() {
+        closed = true;
+    }
+
+    // encodes as many queued messages as fit, each behind its length
+    private boolean fill() {
+        boolean filled = false;
+        CSOMessage message;
+
+        while ((message = outbound.peek()) != null) {
+            int start = writeBuffer.position();
+
+            if (writeBuffer.remaining() <= Integer.BYTES) {
+                break;
+            }
+
+            writeBuffer.position(start + Integer.BYTES);
+
+            try {
+                codec.encode(message, writeBuffer);
+                writeBuffer.putInt(start, writeBuffer.position() - start - Integer.BYTES);
+                sentCount.incrementAndGet();
+                filled = true;
+            } catch (BufferOverflowException e) {
+                writeBuffer.position(start);
+
+                if (start == 0) {
+                    transport.warn("Dropped a message too long to send to " + getRemoteAddress());
+                } else {
+                    break; //it goes in the next write
+                }
+            } catch (IllegalArgumentException e) {
+                writeBuffer.position(start);
+                transport.warn("Dropped a message that cannot be encoded: " + e.getMessage());
+            }
+
+            outbound.poll();
+            queued.decrementAndGet();
+        }
+
+        return filled;
+    }
+
+    private void deliver(CSOMessage message) {
+        receivedCount.incrementAndGet();
+
+        if (message.toCSO == null || !message.toCSO.receiveMessage(message)) {
+            undeliveredCount.incrementAndGet();
+        }
+    }
+
+    // stands in for an object on the other side of the connection
+    private final class Remote implements Messageable {
+        private final long identifier;
+
+        Remote(long identifier) {
+            this.identifier = identifier;
+        }
+
+        @Override
+        public long getIdentifier() {
+            return identifier;
+        }
+
+        @Override
+        public boolean receiveMessage(CSOMessage message) {
+            return enqueue(message);
+        }
+    }
+}
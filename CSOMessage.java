@@ -6,16 +6,19 @@
  * History:     
  *  Date         Author              Changes
  *  09.29.2021   lghoward@uwm.edu    initial
+ *  10.17.2026   agent@local         optional TraceContext
+ *  10.17.2026   agent@local         monotonic nanosecond timestamp instead of Date
 **/
 
 package edu.uwm.basecso;
 
 import java.util.ArrayList;
-import java.util.Date;
 
 /**
  * Implementation of a CSOMessage containing the information needed to be sent to a CSO (such as an order to act on).
  * 
+ * The time a message is sent is a CSOClock timestamp; use CSOClock to turn it into wall clock time.
+ * 
  * @author Lonny Howard - lghoward@uwm.edu
  * @version 0.1.0
  */
@@ -24,7 +27,8 @@ public final class CSOMessage {
     public final Messageable toCSO;
     public final ArrayList<InfospatialCoordinates> selectors;
     public final CSOPayload<?> payload;
-    public final Date timeSent;
+    public final long timeSentNanos;
+    public final TraceContext trace;
 
     /**
      * A container providing a payload for a CSO to act on as well as various metadata.
@@ -33,14 +37,30 @@ public final class CSOMessage {
      * @param toCSO long identifier of the CSO being messaged
      * @param selectors array of InfospatialCoordinates(???)
      * @param payload CSOPayload contains the CSO typed order
-     * @param timeSent Date time message is being sent
+     * @param timeSentNanos long CSOClock time message is being sent
+     */
+    public CSOMessage(Messageable fromCSO, Messageable toCSO, ArrayList<InfospatialCoordinates> selectors, CSOPayload<?> payload, long timeSentNanos) {
+        this(fromCSO, toCSO, selectors, payload, timeSentNanos, null);
+    }
+
+    /**
+     * A container providing a payload for a CSO to act on as well as various metadata,
+     * traced through the stages of the CSO that handle it.
+     * 
+     * @param fromCSO long identifier of the CSO issuing the message
+     * @param toCSO long identifier of the CSO being messaged
+     * @param selectors array of InfospatialCoordinates(???)
+     * @param payload CSOPayload contains the CSO typed order
+     * @param timeSentNanos long CSOClock time message is being sent
+     * @param trace TraceContext of the message, or null if it is not traced
      */
-    public CSOMessage(Messageable fromCSO, Messageable toCSO, ArrayList<InfospatialCoordinates> selectors, CSOPayload<?> payload, Date timeSent) {
+    public CSOMessage(Messageable fromCSO, Messageable toCSO, ArrayList<InfospatialCoordinates> selectors, CSOPayload<?> payload, long timeSentNanos, TraceContext trace) {
         this.fromCSO = fromCSO;
         this.toCSO = toCSO;
         this.selectors = selectors;
         this.payload = payload;
-        this.timeSent = timeSent;
+        this.timeSentNanos = timeSentNanos;
+        this.trace = trace;
     }
 
 }
@@ -0,0 +1,212 @@
+/**
+ * Title: CSOMessageCodec.java
+ * Function:
+ * Compact binary encoding of a CSOMessage.
+ * History:
+ *  Date         Author              Changes
+ *  10.17.2026   agent@local         initial
+**/
+
+package edu.uwm.basecso;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.function.LongFunction;
+
+/**
+ * Writes a CSOMessage to a ByteBuffer and reads it back, so messages can be stored or sent
+ * to another process.
+ *
+ * The sender and receiver are written as their identifiers and looked up again when the
+ * message is read. The payload's order is written by the OrderCodec registered for its class,
+ * behind the tag it was registered with. Every number is a varint, and times are written once
+ * as nanoseconds since the epoch, with the other times as differences from it, so a message
+ * can be read in another JVM and the times still line up within the accuracy of the two clocks.
+ * Nothing is written but the fields: a message carries no length, so a stream of messages
+ * needs its own framing.
+ *
+ * In order, a message is
+ * <ul>
+ * <li>a flags byte saying which of the optional parts follow</li>
+ * <li>the sender and receiver identifiers, if present</li>
+ * <li>the time sent</li>
+ * <li>the trace's origin identifier, sequence and origin time, if traced</li>
+ * <li>the number of selectors and the three coordinates of each, if there are selectors</li>
+ * <li>the order tag, quality, issued and completion times, and the order, if there is a payload</li>
+ * </ul>
+ *
+ * A codec holds no state of its own beyond its registry and lookups, so one can be shared by many threads.
+ *
+ * @author agent
+ */
+public final class CSOMessageCodec {
+    private static final int FROM = 1;
+    private static final int TO = 1 << 1;
+    private static final int TRACE = 1 << 2;
+    private static final int SELECTORS = 1 << 3;
+    private static final int PAYLOAD = 1 << 4;
+
+    private final OrderCodecRegistry registry;
+    private final LongFunction<? extends Messageable> senders;
+    private final LongFunction<? extends Messageable> receivers;
+
+    /**
+     * Constructor
+     *
+     * @param registry OrderCodecRegistry of the order types that can be coded
+     * @param addresses LongFunction that finds the Messageable with an identifier when reading,
+     *                  returning null if there is none
+     */
+    public CSOMessageCodec(OrderCodecRegistry registry, LongFunction<? extends Messageable> addresses) {
+        this(registry, addresses, addresses);
+    }
+
+    /**
+     * Constructor for when senders and receivers are looked up in different places,
+     * such as a transport that receives for local objects on behalf of remote ones.
+     *
+     * @param registry OrderCodecRegistry of the order types that can be coded
+     * @param senders LongFunction that finds the sender with an identifier when reading
+     * @param receivers LongFunction that finds the receiver with an identifier when reading
+     */
+    public CSOMessageCodec(OrderCodecRegistry registry, LongFunction<? extends Messageable> senders, LongFunction<? extends Messageable> receivers) {
+        this.registry = registry;
+        this.senders = senders;
+        this.receivers = receivers;
+    }
+
+    /**
+     * Writes a message at the buffer's position and moves the position past it.
+     * If the message does not fit, the position is left where it was.
+     *
+     * @param message CSOMessage to write
+     * @param out ByteBuffer to write to
+     * @throws BufferOverflowException if the message does not fit in the buffer
+     * @throws IllegalArgumentException if no codec is registered for the class of the order
+     */
+    public void encode(CSOMessage message, ByteBuffer out) {
+        int start = out.position();
+
+        try {
+            write(message, out);
+        } catch (BufferOverflowException | IllegalArgumentException e) {
+            out.position(start);
+            throw e;
+        }
+    }
+
+    /**
+     * Reads a message at the buffer's position and moves the position past it.
+     *
+     * @param in ByteBuffer to read from
+     * @return CSOMessage read
+     * @throws java.nio.BufferUnderflowException if the buffer ends in the middle of the message
+     * @throws IllegalArgumentException if the message is malformed or its order tag is not registered
+     */
+    public CSOMessage decode(ByteBuffer in) {
+        int flags = in.get();
+        Messageable from = (flags & FROM) != 0 ? senders.apply(Varints.getVarLong(in)) : null;
+        Messageable to = (flags & TO) != 0 ? receivers.apply(Varints.getVarLong(in)) : null;
+        long timeSent = CSOClock.fromEpochNanos(Varints.getZigZag(in));
+
+        TraceContext trace = null;
+        if ((flags & TRACE) != 0) {
+            long originId = Varints.getVarLong(in);
+            long sequence = Varints.getVarLong(in);
+            trace = new TraceContext(originId, sequence, timeSent + Varints.getZigZag(in));
+        }
+
+        ArrayList<InfospatialCoordinates> selectors = null;
+        if ((flags & SELECTORS) != 0) {
+            int count = (int) Math.min(Varints.getVarLong(in), in.remaining());
+            selectors = new ArrayList<>(count);
+
+            for (int i = 0; i < count; i++) {
+                selectors.add(new InfospatialCoordinates(Varints.getZigZag(in), Varints.getZigZag(in), Varints.getZigZag(in)));
+            }
+        }
+
+        CSOPayload<?> payload = null;
+        if ((flags & PAYLOAD) != 0) {
+            long tag = Varints.getVarLong(in);
+            long quality = Varints.getZigZag(in);
+            long issued = timeSent + Varints.getZigZag(in);
+            long completion = timeSent + Varints.getZigZag(in);
+            Object order = null;
+
+            if (tag != OrderCodecRegistry.NO_ORDER) {
+                OrderCodecRegistry.Entry<?> entry = registry.forTag(tag);
+
+                if (entry == null) {
+                    throw new IllegalArgumentException("No order codec registered for tag " + tag);
+                }
+
+                order = entry.codec.decode(in);
+            }
+
+            payload = new CSOPayload<Object>(order, quality, issued, completion);
+        }
+
+        return new CSOMessage(from, to, selectors, payload, timeSent, trace);
+    }
+
+    private void write(CSOMessage message, ByteBuffer out) {
+        OrderCodecRegistry.Entry<?> entry = null;
+        Object order = message.payload != null ? message.payload.order : null;
+
+        if (order != null && (entry = registry.forType(order.getClass())) == null) {
+            throw new IllegalArgumentException("No order codec registered for " + order.getClass().getName());
+        }
+
+        boolean hasSelectors = message.selectors != null && !message.selectors.isEmpty();
+        int flags = (message.fromCSO != null ? FROM : 0)
+                | (message.toCSO != null ? TO : 0)
+                | (message.trace != null ? TRACE : 0)
+                | (hasSelectors ? SELECTORS : 0)
+                | (message.payload != null ? PAYLOAD : 0);
+
+        out.put((byte) flags);
+
+        if (message.fromCSO != null) {
+            Varints.putVarLong(out, message.fromCSO.getIdentifier());
+        }
+
+        if (message.toCSO != null) {
+            Varints.putVarLong(out, message.toCSO.getIdentifier());
+        }
+
+        long timeSent = message.timeSentNanos;
+        Varints.putZigZag(out, CSOClock.toEpochNanos(timeSent));
+
+        if (message.trace != null) {
+            Varints.putVarLong(out, message.trace.originId);
+            Varints.putVarLong(out, message.trace.sequence);
+            Varints.putZigZag(out, message.trace.originNanos - timeSent);
+        }
+
+        if (hasSelectors) {
+            Varints.putVarLong(out, message.selectors.size());
+
+            for (int i = 0; i < message.selectors.size(); i++) {
+                InfospatialCoordinates selector = message.selectors.get(i);
+                Varints.putZigZag(out, selector.getG());
+                Varints.putZigZag(out, selector.getS());
+                Varints.putZigZag(out, selector.getA());
+            }
+        }
+
+        if (message.payload != null) {
+            CSOPayload<?> payload = message.payload;
+
+            Varints.putVarLong(out, entry != null ? entry.tag : OrderCodecRegistry.NO_ORDER);
+            Varints.putZigZag(out, payload.quality);
+            Varints.putZigZag(out, payload.issuedTimeNanos - timeSent);
+            Varints.putZigZag(out, payload.completionTimeNanos - timeSent);
+
+            if (entry != null) {
+                entry.encode(order, out);
+            }
+        }
+    }
+}
@@ -6,16 +6,17 @@
  * History:     
  *  Date         Author              Changes
  *  09.29.2021   lghoward@uwm.edu    initial
+ *  10.17.2026   agent@local         monotonic nanosecond timestamps instead of Date
 **/
 
 package edu.uwm.basecso;
 
-import java.util.Date;
-
 /**
  * Implementation of a CSOPayload containing the information needed for a CSO to act on. 
  * The type is generic in order to allow implementation specific data.
  * 
+ * Times are CSOClock timestamps; use CSOClock to turn them into wall clock time.
+ * 
  * @author Lonny Howard - lghoward@uwm.edu
  * @version 0.1.0
  * @param <T> The type of the order. It is expected to be sent to a CSO that will know how to handle.
@@ -23,21 +24,21 @@ import java.util.Date;
 public final class CSOPayload<T> {
     public final T order;
     public final long quality;
-    public final Date issuedTime;
-    public final Date completionTime;
+    public final long issuedTimeNanos;
+    public final long completionTimeNanos;
 
     /**
      * Constructor
      * @param order Should be the same type as the generic parameter for the class. Intended to be CSO specific.
      * @param quality long
-     * @param issuedTime Date
-     * @param completionTime Date
+     * @param issuedTimeNanos long CSOClock time the order was issued
+     * @param completionTimeNanos long CSOClock time the order should be completed by
      */
-    public CSOPayload(T order, long quality, Date issuedTime, Date completionTime) {
+    public CSOPayload(T order, long quality, long issuedTimeNanos, long completionTimeNanos) {
         this.order = order;
         this.quality = quality;
-        this.issuedTime = issuedTime;
-        this.completionTime = completionTime;
+        this.issuedTimeNanos = issuedTimeNanos;
+        this.completionTimeNanos = completionTimeNanos;
     }
 
 }
@@ -5,19 +5,29 @@
  * History:     
  *  Date         Author              Changes
  *  10.24.2021   lghoward@uwm.edu    initial
+ *  10.17.2026   agent@local         wait for messages instead of sleeping between batches
+ *  10.17.2026   agent@local         take shared areas outside the bounded ingress
+ *  10.17.2026   agent@local         queue boundaries losslessly when conflating
 **/
 
 package edu.uwm.cs790.assignment9;
 
 import edu.uwm.basecso.CSO;
 import edu.uwm.basecso.CSOMessage;
+import edu.uwm.basecso.CSOPayload;
 import edu.uwm.basecso.CyberspatialLocation;
+import edu.uwm.basecso.OverflowPolicy;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
 import static java.util.concurrent.Executors.newSingleThreadExecutor;
 
+import java.awt.Point;
 import java.util.LinkedList;
 import java.util.Queue;
-import java.util.concurrent.Exchanger;
 
 
 /**
@@ -34,13 +44,39 @@ import java.util.concurrent.Exchanger;
  * The private processMessages() method takes the messages and passes them on 
  * to the RWSituationAssessor.
  * 
+ * The HandoffMode chosen at construction decides how every stage of the
+ * pipeline hands batches to the next one.
+ * 
+ * With IngressMode.CONFLATING only the latest position of each walker waits
+ * to be processed, so the work done per batch grows with the number of walkers
+ * rather than with how far the pipeline has fallen behind.
+ * 
+ * The ingress loop hands on whatever has arrived as one batch and, when nothing has,
+ * parks until a message arrives, so a batch grows with the load rather than with a fixed pause.
+ * 
+ * Every stage records latency and batch size histograms into the
+ * PipelineMetrics returned by getPipelineMetrics(), which are logged
+ * when the monitor is disabled.
+ * 
  * @author lonny
  */
 
 //TODO attempted test commit -jlane13 11/19
 public class CSORandomWalkMonitor extends CSO {
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    
     ExecutorService ex;
     protected boolean isEnabled = false;
+    private final HandoffMode handoffMode;
+    private final PipelineMetrics pipelineMetrics = new PipelineMetrics();
+    private final IngressMode ingressMode;
+    private final Object positionLock = new Object();
+    private LongObjectHashMap<CSOMessage> latestPositions = new LongObjectHashMap<>();
+    private LongObjectHashMap<CSOMessage> drainedPositions = new LongObjectHashMap<>();
+    private final AtomicLong conflatedCount = new AtomicLong();
+    private final ConcurrentLinkedQueue<CSOMessage> boundaries = new ConcurrentLinkedQueue<>();
+    private volatile Thread ingressThread;
+    private volatile boolean ingressWaiting = false;
 
     /**
      * Constructor
@@ -52,11 +88,144 @@ public class CSORandomWalkMonitor extends CSO {
      * @param pes RWPlanExecutor
      */
     public CSORandomWalkMonitor(long id, CyberspatialLocation location, RWSituationAssessor sas, RWPlanGenerator pgs, RWPlanExecutor pes) {
-        super(id, location, sas, pgs, pes);
+        this(id, location, sas, pgs, pes, HandoffMode.EXCHANGER);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param id long identifier
+     * @param location CyberspatialLocation
+     * @param sas RWSituationAssessor
+     * @param pgs RWPlanGenerator
+     * @param pes RWPlanExecutor
+     * @param handoffMode HandoffMode used between every stage of the pipeline
+     */
+    public CSORandomWalkMonitor(long id, CyberspatialLocation location, RWSituationAssessor sas, RWPlanGenerator pgs, RWPlanExecutor pes, HandoffMode handoffMode) {
+        this(id, location, sas, pgs, pes, handoffMode, DEFAULT_INGRESS_CAPACITY, OverflowPolicy.DROP_NEWEST);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param id long identifier
+     * @param location CyberspatialLocation
+     * @param sas RWSituationAssessor
+     * @param pgs RWPlanGenerator
+     * @param pes RWPlanExecutor
+     * @param handoffMode HandoffMode used between every stage of the pipeline
+     * @param ingressCapacity int maximum number of messages waiting to be processed
+     * @param overflowPolicy OverflowPolicy applied when walkers send faster than the pipeline drains
+     */
+    public CSORandomWalkMonitor(long id, CyberspatialLocation location, RWSituationAssessor sas, RWPlanGenerator pgs, RWPlanExecutor pes, HandoffMode handoffMode, int ingressCapacity, OverflowPolicy overflowPolicy) {
+        this(id, location, sas, pgs, pes, handoffMode, ingressCapacity, overflowPolicy, IngressMode.QUEUED);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param id long identifier
+     * @param location CyberspatialLocation
+     * @param sas RWSituationAssessor
+     * @param pgs RWPlanGenerator
+     * @param pes RWPlanExecutor
+     * @param handoffMode HandoffMode used between every stage of the pipeline
+     * @param ingressMode IngressMode deciding which messages wait to be processed
+     */
+    public CSORandomWalkMonitor(long id, CyberspatialLocation location, RWSituationAssessor sas, RWPlanGenerator pgs, RWPlanExecutor pes, HandoffMode handoffMode, IngressMode ingressMode) {
+        this(id, location, sas, pgs, pes, handoffMode, DEFAULT_INGRESS_CAPACITY, OverflowPolicy.DROP_NEWEST, ingressMode);
+    }
+
+    /**
+     * Constructor
+     * 
+     * @param id long identifier
+     * @param location CyberspatialLocation
+     * @param sas RWSituationAssessor
+     * @param pgs RWPlanGenerator
+     * @param pes RWPlanExecutor
+     * @param handoffMode HandoffMode used between every stage of the pipeline
+     * @param ingressCapacity int maximum number of messages waiting to be processed when queued
+     * @param overflowPolicy OverflowPolicy applied when walkers send faster than the pipeline drains a queued ingress
+     * @param ingressMode IngressMode deciding which messages wait to be processed
+     */
+    public CSORandomWalkMonitor(long id, CyberspatialLocation location, RWSituationAssessor sas, RWPlanGenerator pgs, RWPlanExecutor pes, HandoffMode handoffMode, int ingressCapacity, OverflowPolicy overflowPolicy, IngressMode ingressMode) {
+        super(id, location, sas, pgs, pes, ingressCapacity, overflowPolicy);
         
+        this.handoffMode = handoffMode;
+        this.ingressMode = ingressMode;
         ex = newSingleThreadExecutor(); 
     }
 
+    public HandoffMode getHandoffMode() {
+        return handoffMode;
+    }
+
+    public PipelineMetrics getPipelineMetrics() {
+        return pipelineMetrics;
+    }
+
+    public IngressMode getIngressMode() {
+        return ingressMode;
+    }
+
+    /**
+     * @return long number of positions replaced by a newer position from the same walker before being processed
+     */
+    public long getConflatedCount() {
+        return conflatedCount.get();
+    }
+
+    /**
+     * When conflating, a position replaces any position from the same walker that is still waiting
+     * and is always accepted, since at most one position per walker waits. A boundary is queued
+     * outside the bounded ingress, like a shared area, and is always accepted too, since a walker
+     * registers its boundary once and losing it would leave the walker undirected for the rest of the run.
+     * Every other message is queued subject to the ingress capacity and OverflowPolicy,
+     * and the result says whether it was accepted.
+     */
+    @Override
+    public boolean receiveMessage(CSOMessage message) {
+        boolean accepted = true;
+        
+        if (ingressMode == IngressMode.CONFLATING && message.payload.order instanceof Point && message.fromCSO != null) {
+            synchronized (positionLock) {
+                if (latestPositions.put(message.fromCSO.getIdentifier(), message) != null) {
+                    conflatedCount.incrementAndGet();
+                }
+            }
+        } else if (ingressMode == IngressMode.CONFLATING && message.payload.order instanceof RWBoundary) {
+            boundaries.offer(message);
+        } else {
+            accepted = super.receiveMessage(message);
+        }
+        
+        wakeIngress();
+        return accepted;
+    }
+    
+    /**
+     * Takes a covered area with no walker to direct, as shared by a ShardedRandomWalkMonitor.
+     * It waits outside the bounded ingress with the boundaries and goes ahead of every other message,
+     * so it is never turned away; there is only one per coverage area, so that queue stays small.
+     * 
+     * @param area RWBoundary covered by a walker of another shard
+     * @param timeSentNanos long CSOClock time the area was sent
+     */
+    void shareArea(RWBoundary area, long timeSentNanos) {
+        CSOPayload<RWBoundary> payload = new CSOPayload<RWBoundary>(area, 0, timeSentNanos, timeSentNanos);
+        
+        boundaries.offer(new CSOMessage(null, this, null, payload, timeSentNanos));
+        wakeIngress();
+    }
+    
+    // only costs an unpark when the ingress loop has found nothing to do
+    private void wakeIngress() {
+        if (ingressWaiting) {
+            LockSupport.unpark(ingressThread);
+        }
+    }
+
     @Override
     public void enable() {
         Runnable r = () -> {
@@ -72,15 +241,28 @@ public class CSORandomWalkMonitor extends CSO {
     public void disable() {
         this.isEnabled = false;
         messages.clear();
+        boundaries.clear();
+        
+        synchronized (positionLock) {
+            latestPositions.clear();
+        }
+        
         ex.shutdown();
+        LockSupport.unpark(ingressThread);
+        
+        Logger.log(pipelineMetrics.report());
+        Logger.flush();
     }
     
     @Override
     protected void processMessages() {
     	Thread.currentThread().setName("CSO Processing Thread " + this.getIdentifier());
+    	ingressThread = Thread.currentThread();
     	
-    	Exchanger<Queue<CSOMessage>> exchanger = new Exchanger<Queue<CSOMessage>>();
-    	((RWSituationAssessor) situationAssessmentService).setExchanger(exchanger);
+    	StageHandoff<Queue<CSOMessage>> handoff = handoffMode.newHandoff(LinkedList::new);
+    	((RWSituationAssessor) situationAssessmentService).setHandoff(handoff);
+    	((RWSituationAssessor) situationAssessmentService).setMetrics(pipelineMetrics);
+    	StageMetrics ingressMetrics = pipelineMetrics.stage("ingress");
     	
     	Queue<CSOMessage> messageList = new LinkedList<>();
     	
@@ -88,24 +270,92 @@ public class CSORandomWalkMonitor extends CSO {
     	
         while (isEnabled) {
             try {
-            	while (!messages.isEmpty()) {
-	                Logger.log("Taking message from queue.");
-	                CSOMessage message = messages.take();
-
-	                messageList.add(message);
+            	CSOMessage boundary;
+            	
+            	while ((boundary = boundaries.poll()) != null) {
+            		messageList.add(boundary);
+            	}
+            	
+            	if (ingressMode == IngressMode.CONFLATING) {
+            		drainConflated(messageList, ingressMetrics);
+            	} else {
+	            	while (!messages.isEmpty()) {
+		                Logger.trace("Taking message from queue.");
+		                CSOMessage message = messages.take();
+		                ingressMetrics.recordHop(message.trace);
+	
+		                messageList.add(message);
+	            	}
             	}
                 
-            	Logger.log("Exchanging message queue of " + messageList.size() + " messages with System Assessment.");
-            	messageList = exchanger.exchange(messageList);
+            	int batchSize = messageList.size();
+            	
+            	if (batchSize == 0) {
+            		awaitMessages();
+            		continue;
+            	}
             	
-            	// playing with the pause to get multiple messages to be processed
-            	// in a batch
-            	Thread.sleep(70);
+            	Logger.debug(() -> "Exchanging message queue of " + batchSize + " messages with System Assessment.");
+            	ingressMetrics.getBatchSizes().record(batchSize);
+            	
+            	long start = System.nanoTime();
+            	messageList = handoff.publish(messageList);
+            	ingressMetrics.getPublishWaitNanos().record(System.nanoTime() - start);
                 
             } catch (Exception ex) {
-            	Logger.log("Caught exception. " + ex.getMessage());
+            	Logger.warn(() -> "Caught exception. " + ex.getMessage());
             }
         }
     }
 
+    // a sender that finds ingressWaiting set unparks this thread, and one that got in before it was set
+    // is seen by hasMessages(), so a message is never left waiting for the timeout
+    private void awaitMessages() {
+    	ingressWaiting = true;
+    	
+    	if (isEnabled && !hasMessages()) {
+    		LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+    	}
+    	
+    	ingressWaiting = false;
+    }
+    
+    private boolean hasMessages() {
+    	if (!messages.isEmpty() || !boundaries.isEmpty()) {
+    		return true;
+    	}
+    	
+    	if (ingressMode == IngressMode.QUEUED) {
+    		return false;
+    	}
+    	
+    	synchronized (positionLock) {
+    		return latestPositions.size() > 0;
+    	}
+    }
+
+    // boundaries and other queued messages go first, then the latest position of each walker
+    private void drainConflated(Queue<CSOMessage> messageList, StageMetrics ingressMetrics) {
+    	CSOMessage message;
+    	
+    	while ((message = messages.poll()) != null) {
+    		ingressMetrics.recordHop(message.trace);
+    		messageList.add(message);
+    	}
+    	
+    	LongObjectHashMap<CSOMessage> positions;
+    	
+    	synchronized (positionLock) {
+    		positions = latestPositions;
+    		latestPositions = drainedPositions;
+    		drainedPositions = positions;
+    	}
+    	
+    	positions.forEachValue(position -> {
+    		ingressMetrics.recordHop(position.trace);
+    		messageList.add(position);
+    	});
+    	positions.clear();
+    }
+
 }
@@ -0,0 +1,357 @@
+/**
+ * Title: CSOTransport.java
+ * Function:
+ * Carries CSOMessages between processes over non-blocking sockets.
+ * History:
+ *  Date         Author              Changes
+ *  10.17.2026   agent@local         initial
+**/
+
+package edu.uwm.basecso;
+
+import edu.uwm.cs790.assignment9.Logger;
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * Lets Messageables in different processes message each other, over TCP or, for processes on
+ * the same machine, Unix domain sockets, without changing how they send: a sender calls
+ * receiveMessage() on a proxy from a CSOConnection as it would on the object itself.
+ *
+ * A transport exports the local objects other processes may address, listens for connections,
+ * makes connections, or any mix of these. All sockets are non-blocking and served by one
+ * event loop thread that accepts, reads and delivers messages, and writes everything queued
+ * on a connection since its last write in one go, so many small messages share a system call.
+ * Messages are encoded with a CSOMessageCodec, so every order type sent must be registered
+ * in the transport's OrderCodecRegistry on both sides.
+ *
+ * Delivery to an exported object happens on the event loop thread, so receiveMessage() of an
+ * exported object should hand the message off rather than act on it, as a CSO does.
+ * Messages for an identifier that is not exported are dropped; they, and messages the exported
+ * object turns away, are counted by the connection's getUndeliveredCount().
+ *
+ * @author agent
+ */
+public final class CSOTransport implements AutoCloseable {
+    public static final int DEFAULT_BUFFER_BYTES = 64 * 1024;
+    public static final int DEFAULT_MAX_QUEUED = 64 * 1024;
+
+    private final OrderCodecRegistry registry;
+    private final int bufferBytes;
+    private final int maxQueued;
+    private final Selector selector;
+    private final Thread eventLoop;
+    private final HashMap<Long, Messageable> exports = new HashMap<>();
+    private final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<CSOConnection> flushes = new ConcurrentLinkedQueue<>();
+    private final List<CSOConnection> connections = new ArrayList<>();
+    private final List<ServerSocketChannel> servers = new ArrayList<>();
+    private volatile Consumer<String> warnings = Logger::warn;
+    private volatile boolean isRunning = true;
+
+    /**
+     * Constructor
+     *
+     * @param registry OrderCodecRegistry of the order types that can be sent
+     * @throws IOException if the selector cannot be opened
+     */
+    public CSOTransport(OrderCodecRegistry registry) throws IOException {
+        this(registry, DEFAULT_BUFFER_BYTES, DEFAULT_MAX_QUEUED);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param registry OrderCodecRegistry of the order types that can be sent
+     * @param bufferBytes int size of each connection's read and write buffers, and so the longest message
+     * @param maxQueued int messages a connection queues before its proxies turn messages away
+     * @throws IOException if the selector cannot be opened
+     */
+    public CSOTransport(OrderCodecRegistry registry, int bufferBytes, int maxQueued) throws IOException {
+        this.registry = registry;
+        this.bufferBytes = bufferBytes;
+        this.maxQueued = maxQueued;
+        this.selector = Selector.open();
+
+        eventLoop = new Thread(this::eventLoop, "CSO Transport Thread");
+        eventLoop.setDaemon(true);
+        eventLoop.start();
+    }
+
+    /**
+     * Makes a local object reachable by its identifier from the other side of every connection.
+     *
+     * @param local Messageable to export
+     */
+    public void export(Messageable local) {
+        synchronized (exports) {
+            exports.put(local.getIdentifier(), local);
+        }
+    }
+
+    public void unexport(Messageable local) {
+        synchronized (exports) {
+            exports.remove(local.getIdentifier(), local);
+        }
+    }
+
+    /**
+     * Accepts connections on an address.
+     *
+     * @param address SocketAddress to listen on: an InetSocketAddress, port 0 for any free port,
+     *                or a UnixDomainSocketAddress whose file must not exist yet
+     * @return SocketAddress actually listened on
+     * @throws IOException if the address cannot be bound
+     */
+    public SocketAddress listen(SocketAddress address) throws IOException {
+        ServerSocketChannel server = address instanceof UnixDomainSocketAddress
+                ? ServerSocketChannel.open(StandardProtocolFamily.UNIX)
+                : ServerSocketChannel.open();
+
+        server.bind(address);
+        server.configureBlocking(false);
+        runOnEventLoop(() -> {
+            try {
+                server.register(selector, SelectionKey.OP_ACCEPT);
+                servers.add(server);
+            } catch (IOException e) {
+                warn("Could not listen on " + address + ": " + e.getMessage());
+            }
+        });
+
+        return server.getLocalAddress();
+    }
+
+    /**
+     * Connects to a transport listening on an address, waiting until the connection is made.
+     *
+     * @param address SocketAddress of the other transport, an InetSocketAddress or a UnixDomainSocketAddress
+     * @return CSOConnection to the other transport
+     * @throws IOException if the connection cannot be made
+     */
+    public CSOConnection connect(SocketAddress address) throws IOException {
+        SocketChannel channel = SocketChannel.open(address);
+
+        return add(channel);
+    }
+
+    /**
+     * Sets where problems on the event loop, such as a connection that failed, are reported.
+     *
+     * @param warnings Consumer of warning messages, Logger.warn() by default
+     */
+    public void setWarningHandler(Consumer<String> warnings) {
+        this.warnings = warnings;
+    }
+
+    /**
+     * @return int messages a connection queues before its proxies turn messages away
+     */
+    public int getMaxQueued() {
+        return maxQueued;
+    }
+
+    /**
+     * Closes every connection and stops listening. Queued messages that have not been written are lost.
+     */
+    @Override
+    public void close() {
+        isRunning = false;
+        selector.wakeup();
+
+        try {
+            eventLoop.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    Messageable exported(long identifier) {
+        synchronized (exports) {
+            return exports.get(identifier);
+        }
+    }
+
+    void scheduleFlush(CSOConnection connection) {
+        flushes.offer(connection);
+        selector.wakeup();
+    }
+
+    void close(CSOConnection connection) {
+        runOnEventLoop(() -> closeConnection(connection));
+    }
+
+    void warn(String warning) {
+        warnings.accept(warning);
+    }
+
+    private CSOConnection add(SocketChannel channel) throws IOException {
+        channel.configureBlocking(false);
+
+        if (channel.supportedOptions().contains(StandardSocketOptions.TCP_NODELAY)) {
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        }
+
+        CSOConnection connection = new CSOConnection(this, channel, registry, bufferBytes);
+
+        runOnEventLoop(() -> {
+            try {
+                connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+                connections.add(connection);
+
+                // messages queued before the connection was registered were not written
+                if (connection.hasQueued()) {
+                    flush(connection);
+                }
+            } catch (IOException e) {
+                warn("Could not add connection: " + e.getMessage());
+                closeConnection(connection);
+            }
+        });
+
+        return connection;
+    }
+
+    // channels can only be registered while the selector is not selecting, so that is done between selects
+    private void runOnEventLoop(Runnable task) {
+        tasks.offer(task);
+        selector.wakeup();
+    }
+
+    private void eventLoop() {
+        while (isRunning) {
+            try {
+                selector.select();
+            } catch (IOException e) {
+                warn("Transport selector failed: " + e.getMessage());
+                break;
+            }
+
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                task.run();
+            }
+
+            for (SelectionKey key : selector.selectedKeys()) {
+                handle(key);
+            }
+
+            selector.selectedKeys().clear();
+
+            CSOConnection connection;
+            while ((connection = flushes.poll()) != null) {
+                flush(connection);
+            }
+        }
+
+        shutDown();
+    }
+
+    private void handle(SelectionKey key) {
+        if (!key.isValid()) {
+            return;
+        }
+
+        if (key.isAcceptable()) {
+            accept((ServerSocketChannel) key.channel());
+            return;
+        }
+
+        CSOConnection connection = (CSOConnection) key.attachment();
+
+        try {
+            if (key.isReadable() && !connection.read()) {
+                closeConnection(connection);
+                return;
+            }
+
+            if (key.isValid() && key.isWritable()) {
+                flush(connection);
+            }
+        } catch (IOException e) {
+            warn("Closing connection to " + connection.getRemoteAddress() + ": " + e.getMessage());
+            closeConnection(connection);
+        }
+    }
+
+    private void accept(ServerSocketChannel server) {
+        try {
+            SocketChannel channel;
+
+            while ((channel = server.accept()) != null) {
+                add(channel);
+            }
+        } catch (IOException e) {
+            warn("Could not accept a connection: " + e.getMessage());
+        }
+    }
+
+    // a connection that is not registered yet is flushed by its registration task instead
+    private void flush(CSOConnection connection) {
+        if (connection.key == null || !connection.key.isValid()) {
+            return;
+        }
+
+        try {
+            // wait for the socket to be writable only while it is full
+            int interest = connection.flush() ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE;
+            connection.key.interestOps(interest);
+        } catch (IOException e) {
+            warn("Closing connection to " + connection.getRemoteAddress() + ": " + e.getMessage());
+            closeConnection(connection);
+        }
+    }
+
+    private void closeConnection(CSOConnection connection) {
+        connection.markClosed();
+        connections.remove(connection);
+
+        if (connection.key != null) {
+            connection.key.cancel();
+        }
+
+        try {
+            connection.channel.close();
+        } catch (IOException e) {
+            warn("Could not close connection: " + e.getMessage());
+        }
+    }
+
+    private void shutDown() {
+        for (CSOConnection connection : new ArrayList<>(connections)) {
+            closeConnection(connection);
+        }
+
+        for (ServerSocketChannel server : servers) {
+            try {
+                SocketAddress address = server.getLocalAddress();
+                server.close();
+
+                if (address instanceof UnixDomainSocketAddress) {
+                    Files.deleteIfExists(((UnixDomainSocketAddress) address).getPath());
+                }
+            } catch (IOException e) {
+                warn("Could not stop listening: " + e.getMessage());
+            }
+        }
+
+        try {
+            selector.close();
+        } catch (IOException e) {
+            warn("Could not close selector: " + e.getMessage());
+        }
+    }
+}
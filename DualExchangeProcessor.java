@@ -1,16 +1,18 @@
 package edu.uwm.cs790.assignment9;
 
 import java.util.Queue;
-import java.util.concurrent.Exchanger;
-import java.util.function.Function;
+import java.util.function.BiFunction;
 
 /**
- * A DualExchangeProcessor encapsulates the logic of a run loop that exchanges a {@link Queue} of data in and another {@link Queue} of data out using {@link Exchanger} instances.
- * It processes the data in the inbound {@link Queue} using the {@link Function} passed in the constructor. The {@link Function} then returns a new {@link Queue} of data
- * that is exchanged through the outbound {@link Exchanger}.
+ * A DualExchangeProcessor encapsulates the logic of a run loop that exchanges a {@link Queue} of data in and another {@link Queue} of data out using {@link StageHandoff} instances.
+ * It processes the data in the inbound {@link Queue} using the {@link BiFunction} passed in the constructor. The {@link BiFunction} fills the outbound {@link Queue} it is given
+ * and returns it so it can be handed off through the outbound {@link StageHandoff}.
  * 
  * Useful for implementing a pipeline of producer-consumer {@link Thread} instances that need to exchange queues of data, process the data, and pass a {@link Queue}
- * of processed data to the next stage in the pipeline.
+ * of processed data to the next stage in the pipeline. Whether neighbouring stages run in lock-step or can run ahead of each other depends on the
+ * {@link HandoffMode} of the handoffs.
+ * 
+ * Every take, process call and publish is timed into the {@link StageMetrics} of the stage, along with the size of each batch processed.
  * 
  * @author lonny
  *
@@ -18,29 +20,47 @@ import java.util.function.Function;
  * @param <OUT> generic type parameter for any {@link Queue}
  */
 public class DualExchangeProcessor<IN extends Queue<?>, OUT extends Queue<?>> {
-	private final Exchanger<IN> inExchanger;
-	private final Exchanger<OUT> outExchanger;
-	private final Function<IN, OUT> process;
+	private final StageHandoff<IN> inHandoff;
+	private final StageHandoff<OUT> outHandoff;
+	private final BiFunction<IN, OUT, OUT> process;
+	private final StageMetrics metrics;
 	
 	/**
-	 * Constructor that takes a inbound and outbound {@link Exchanger} and a Function to handle processing the data.
+	 * Constructor that takes a inbound and outbound {@link StageHandoff} and a BiFunction to handle processing the data.
+	 * 
+	 * @param inHandoff a {@link StageHandoff} that hands over queues from the previous stage
+	 * @param outHandoff a {@link StageHandoff} that hands over queues to the next stage
+	 * @param process a {@link BiFunction} that takes the inbound {@link Queue}, processes the data into the outbound {@link Queue}, and returns the outbound {@link Queue} to be exchanged
+	 */
+	public DualExchangeProcessor(StageHandoff<IN> inHandoff, StageHandoff<OUT> outHandoff, BiFunction<IN, OUT, OUT> process) {
+		this(inHandoff, outHandoff, process, new StageMetrics("stage"));
+	}
+
+	/**
+	 * Constructor that also takes the {@link StageMetrics} the stage records into.
 	 * 
-	 * @param inExchanger an {@link Exchanger} that exchanges queues
-	 * @param outExchanger an {@link Exchanger} that exchanges queues
-	 * @param process a {@link Function} that takes a {@link Queue}, processes the data, and returns a new {@link Queue} to be exchanged
+	 * @param inHandoff a {@link StageHandoff} that hands over queues from the previous stage
+	 * @param outHandoff a {@link StageHandoff} that hands over queues to the next stage
+	 * @param process a {@link BiFunction} that takes the inbound {@link Queue}, processes the data into the outbound {@link Queue}, and returns the outbound {@link Queue} to be exchanged
+	 * @param metrics {@link StageMetrics} of the stage
 	 */
-	public DualExchangeProcessor(Exchanger<IN> inExchanger, Exchanger<OUT> outExchanger, Function<IN, OUT> process) {
+	public DualExchangeProcessor(StageHandoff<IN> inHandoff, StageHandoff<OUT> outHandoff, BiFunction<IN, OUT, OUT> process, StageMetrics metrics) {
 		super();
-		this.inExchanger = inExchanger;
-		this.outExchanger = outExchanger;
+		this.inHandoff = inHandoff;
+		this.outHandoff = outHandoff;
 		this.process = process;
+		this.metrics = metrics;
+	}
+
+	public StageMetrics getMetrics() {
+		return metrics;
 	}
 
 	/**
 	 * Method to start exchanging the passed in {@link Queue} instances in a run loop.
 	 * The loop will continue as long as the inbound {@link Queue} is empty.
 	 * In other words, to continue exchanging, all data in the inbound {@link Queue} must be consumed
-	 * by the {@link Function} passed in the constructor and new data added to the outbound {@link Queue}
+	 * by the {@link BiFunction} passed in the constructor and new data added to the outbound {@link Queue}
 	 * so the empty {@link Queue} can be exchanged back with the Thread that owns the inbound side
 	 * and the outbound {@link Queue} will have data to exchange to the next Thread.
 	 * 
@@ -51,25 +71,34 @@ public class DualExchangeProcessor<IN extends Queue<?>, OUT extends Queue<?>> {
 		try {
 			Thread.sleep(500);
 		} catch (InterruptedException e1) {
-			Logger.log(e1.getMessage());
+			Logger.warn(e1.getMessage());
 		}
 		
 		do {
 			try {
 				//Logger.log("Exchanging inbound queue.");
-				inQueue = inExchanger.exchange(inQueue);
+				long start = System.nanoTime();
+				inQueue = inHandoff.take(inQueue);
+				long end = System.nanoTime();
+				metrics.getTakeWaitNanos().record(end - start);
 				//Logger.log("Finished exchanging inbound queue. Size: " + inQueue.size());
 			
 				if (!inQueue.isEmpty()) {
-					outQueue = process.apply(inQueue);
+					metrics.getBatchSizes().record(inQueue.size());
+					start = end;
+					outQueue = process.apply(inQueue, outQueue);
+					end = System.nanoTime();
+					metrics.getProcessNanos().record(end - start);
 				}
 				
 				//Logger.log("Exchanging outbound queue.");
-				outQueue = outExchanger.exchange(outQueue);
+				start = end;
+				outQueue = outHandoff.publish(outQueue);
+				metrics.getPublishWaitNanos().record(System.nanoTime() - start);
 				//Logger.log("Finished exchanging outbound queue. Size: " + outQueue.size());
 
 			} catch (Exception e) {
-				Logger.log("Exception occured in dualExchanger: " + e.getMessage());
+				Logger.warn(() -> "Exception occured in dualExchanger: " + e.getMessage());
 			}
 
 			
@@ -0,0 +1,31 @@
+package edu.uwm.cs790.assignment9;
+
+import java.util.Queue;
+import java.util.concurrent.Exchanger;
+
+/**
+ * A {@link StageHandoff} backed by an {@link Exchanger}.
+ * Both sides of the handoff block until the other side arrives and then swap queues.
+ *
+ * @author agent
+ *
+ * @param <Q> generic type parameter for any {@link Queue}
+ */
+public class ExchangerHandoff<Q extends Queue<?>> implements StageHandoff<Q> {
+	private final Exchanger<Q> exchanger = new Exchanger<>();
+
+	@Override
+	public Q publish(Q batch) throws InterruptedException {
+		return exchanger.exchange(batch);
+	}
+
+	@Override
+	public Q take(Q drained) throws InterruptedException {
+		return exchanger.exchange(drained);
+	}
+
+	@Override
+	public HandoffMode getMode() {
+		return HandoffMode.EXCHANGER;
+	}
+}
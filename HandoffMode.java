@@ -0,0 +1,35 @@
+package edu.uwm.cs790.assignment9;
+
+import java.util.Queue;
+import java.util.function.Supplier;
+
+/**
+ * Selects how the stages of a pipeline hand queues of data to each other.
+ *
+ * {@link #EXCHANGER} makes every stage rendezvous with both of its neighbours in lock-step.
+ * {@link #RING_BUFFER} lets a stage run ahead of the next one by up to {@link RingBufferHandoff#DEFAULT_CAPACITY} batches.
+ *
+ * @author agent
+ */
+public enum HandoffMode {
+	EXCHANGER {
+		@Override
+		public <Q extends Queue<?>> StageHandoff<Q> newHandoff(Supplier<Q> queueFactory) {
+			return new ExchangerHandoff<>();
+		}
+	},
+	RING_BUFFER {
+		@Override
+		public <Q extends Queue<?>> StageHandoff<Q> newHandoff(Supplier<Q> queueFactory) {
+			return new RingBufferHandoff<>(RingBufferHandoff.DEFAULT_CAPACITY, queueFactory);
+		}
+	};
+
+	/**
+	 * Creates a handoff between two stages.
+	 *
+	 * @param queueFactory creates the empty queues a handoff may need to preallocate
+	 * @return a new {@link StageHandoff}
+	 */
+	public abstract <Q extends Queue<?>> StageHandoff<Q> newHandoff(Supplier<Q> queueFactory);
+}
@@ -0,0 +1,123 @@
+package edu.uwm.cs790.assignment9;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-memory histogram of non-negative long values, laid out like an HDR histogram:
+ * values below 2^PRECISION_BITS get a bucket each, and every power of two above that is split
+ * into 2^(PRECISION_BITS - 1) linear sub-buckets, so any recorded value is reported to within
+ * about 1.6% of its true value.
+ *
+ * Values larger than HIGHEST_TRACKABLE_VALUE (a little over 18 minutes when recording nanoseconds)
+ * are counted in the last bucket. The exact maximum is kept on the side.
+ *
+ * Recording never allocates and may be done from any thread. Queries may run while values are
+ * being recorded and then see a consistent-enough view for monitoring, not an atomic snapshot.
+ *
+ * @author agent
+ */
+public class Histogram {
+	public static final int PRECISION_BITS = 7;
+	public static final long HIGHEST_TRACKABLE_VALUE = (1L << 40) - 1;
+
+	private static final int SUB_BUCKETS = 1 << PRECISION_BITS;
+	private static final int HALF_SUB_BUCKETS = SUB_BUCKETS >> 1;
+	private static final int BUCKET_COUNT = indexFor(HIGHEST_TRACKABLE_VALUE) + 1;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+	private final AtomicLong totalCount = new AtomicLong();
+	private final AtomicLong sum = new AtomicLong();
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * Records one value, negative values are recorded as 0.
+	 *
+	 * @param value long value to record
+	 */
+	public void record(long value) {
+		value = Math.max(value, 0);
+
+		counts.incrementAndGet(indexFor(Math.min(value, HIGHEST_TRACKABLE_VALUE)));
+		totalCount.incrementAndGet();
+		sum.addAndGet(value);
+
+		long currentMax;
+		while (value > (currentMax = max.get()) && !max.compareAndSet(currentMax, value)) {
+			// retry until the larger value is in place
+		}
+	}
+
+	public long getTotalCount() {
+		return totalCount.get();
+	}
+
+	public long getMax() {
+		return max.get();
+	}
+
+	public double getMean() {
+		long count = totalCount.get();
+		return count == 0 ? 0.0 : (double) sum.get() / count;
+	}
+
+	/**
+	 * @param percentile double between 0 and 100
+	 * @return long highest value that percentile of the recorded values are at or below, 0 if nothing was recorded
+	 */
+	public long getValueAtPercentile(double percentile) {
+		long count = totalCount.get();
+
+		if (count == 0) {
+			return 0;
+		}
+
+		long rank = Math.max(1, (long) Math.ceil(Math.min(percentile, 100.0) / 100.0 * count));
+		long seen = 0;
+
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			seen += counts.get(i);
+
+			if (seen >= rank) {
+				return Math.min(highestValueAt(i), getMax());
+			}
+		}
+
+		return getMax();
+	}
+
+	/**
+	 * Clears every recorded value.
+	 */
+	public void reset() {
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			counts.set(i, 0);
+		}
+
+		totalCount.set(0);
+		sum.set(0);
+		max.set(0);
+	}
+
+	// buckets [0, SUB_BUCKETS) hold exact values, after that each power of two gets HALF_SUB_BUCKETS buckets
+	private static int indexFor(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+
+		int shift = 64 - Long.numberOfLeadingZeros(value) - PRECISION_BITS;
+
+		return SUB_BUCKETS + (shift - 1) * HALF_SUB_BUCKETS + (int) ((value >>> shift) - HALF_SUB_BUCKETS);
+	}
+
+	private static long highestValueAt(int index) {
+		if (index < SUB_BUCKETS) {
+			return index;
+		}
+
+		int shift = (index - SUB_BUCKETS) / HALF_SUB_BUCKETS + 1;
+		long subBucket = (index - SUB_BUCKETS) % HALF_SUB_BUCKETS + HALF_SUB_BUCKETS;
+
+		return ((subBucket + 1) << shift) - 1;
+	}
+}
@@ -0,0 +1,17 @@
+package edu.uwm.cs790.assignment9;
+
+/**
+ * Selects how a {@link CSORandomWalkMonitor} holds messages until its pipeline takes them.
+ * 
+ * {@link #QUEUED} keeps every message in the bounded queue of the CSO, subject to its OverflowPolicy.
+ * {@link #CONFLATING} keeps only the latest position reported by each walker, which needs no bound since there is one per walker,
+ * and every boundary, which needs none either since each walker registers one. Every other message waits
+ * in the bounded queue of the CSO, subject to its OverflowPolicy.
+ * Boundaries are handed to the pipeline ahead of positions, and a batch holds at most one position per walker.
+ * 
+ * @author agent
+ */
+public enum IngressMode {
+	QUEUED,
+	CONFLATING
+}
@@ -2,32 +2,225 @@
  * Title: Logger.java
  * Function:
  *  Simple class to hand logging.
- * History:     
+ * History:
  *  Date         Author              Changes
  *  11.03.2021   lghoward@uwm.edu    initial
+ *  10.17.2026   agent@local         levels, lazy messages and a background writer
 **/
 package edu.uwm.cs790.assignment9;
 
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
 /**
  * Simple class to handle logging.
- * 
+ *
+ * Messages have a Level and are only built and recorded when their level is enabled.
+ * Messages that are expensive to build should be passed as a Supplier so a disabled
+ * level costs no more than a comparison.
+ *
+ * Logging never blocks the caller. Records go into a bounded ring buffer that a background
+ * thread drains to standard output, and a record is dropped (and counted) if the buffer is full.
+ *
  * @author lonny
  *
  */
 public class Logger {
-	private static boolean isEnabled = true;
+
+	/**
+	 * Severity of a log message, from most to least verbose.
+	 */
+	public enum Level {
+		TRACE, DEBUG, INFO, WARN, ERROR, OFF
+	}
+
+	private static final int BUFFER_CAPACITY = 1 << 14;
+	private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+	private static volatile Level level = Level.INFO;
+	private static final Entry[] buffer = new Entry[BUFFER_CAPACITY];
+	private static final AtomicLong tail = new AtomicLong();
+	private static final AtomicLong dropped = new AtomicLong();
+	private static long head = 0; // only touched while holding the writer lock
+	private static final Object writerLock = new Object();
+	private static final PrintWriter out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8)), false);
+
+	static {
+		for (int i = 0; i < BUFFER_CAPACITY; i++) {
+			buffer[i] = new Entry(i);
+		}
+
+		Thread writer = new Thread(Logger::drainLoop, "Logger Thread");
+		writer.setDaemon(true);
+		writer.setPriority(Thread.MIN_PRIORITY);
+		writer.start();
+
+		Runtime.getRuntime().addShutdownHook(new Thread(Logger::flush, "Logger Shutdown Thread"));
+	}
 
 	public static boolean isEnabled() {
-		return isEnabled;
+		return level != Level.OFF;
 	}
 
+	/**
+	 * Turns all logging on at INFO or off.
+	 *
+	 * @param enabled boolean
+	 */
 	public static void setEnabled(boolean enabled) {
-		isEnabled = enabled;
+		level = enabled ? Level.INFO : Level.OFF;
+	}
+
+	public static Level getLevel() {
+		return level;
+	}
+
+	public static void setLevel(Level newLevel) {
+		level = newLevel;
 	}
-	
+
+	public static boolean isEnabled(Level messageLevel) {
+		return messageLevel.compareTo(level) >= 0 && messageLevel != Level.OFF;
+	}
+
+	/**
+	 * @return long number of records dropped because the buffer was full
+	 */
+	public static long getDroppedCount() {
+		return dropped.get();
+	}
+
 	public static void log(String message) {
-		if (isEnabled) {
-			StdOut.println(Thread.currentThread().getName() + ": " + message);
+		log(Level.INFO, message);
+	}
+
+	public static void log(Level messageLevel, String message) {
+		if (isEnabled(messageLevel)) {
+			enqueue(message);
+		}
+	}
+
+	public static void log(Level messageLevel, Supplier<String> message) {
+		if (isEnabled(messageLevel)) {
+			enqueue(message.get());
+		}
+	}
+
+	public static void trace(String message) {
+		log(Level.TRACE, message);
+	}
+
+	public static void trace(Supplier<String> message) {
+		log(Level.TRACE, message);
+	}
+
+	public static void debug(String message) {
+		log(Level.DEBUG, message);
+	}
+
+	public static void debug(Supplier<String> message) {
+		log(Level.DEBUG, message);
+	}
+
+	public static void warn(String message) {
+		log(Level.WARN, message);
+	}
+
+	public static void warn(Supplier<String> message) {
+		log(Level.WARN, message);
+	}
+
+	public static void error(String message) {
+		log(Level.ERROR, message);
+	}
+
+	/**
+	 * Writes out every record logged so far and waits until it is written.
+	 */
+	public static void flush() {
+		synchronized (writerLock) {
+			drain();
+		}
+	}
+
+	// multi-producer claim of the next slot, the slot's sequence says whether the writer has freed it yet
+	private static void enqueue(String message) {
+		String threadName = Thread.currentThread().getName();
+
+		for (;;) {
+			long position = tail.get();
+			Entry entry = buffer[(int) (position & (BUFFER_CAPACITY - 1))];
+			long difference = entry.sequence - position;
+
+			if (difference == 0) {
+				if (tail.compareAndSet(position, position + 1)) {
+					entry.threadName = threadName;
+					entry.message = message;
+					entry.sequence = position + 1;
+					return;
+				}
+			} else if (difference < 0) {
+				dropped.incrementAndGet();
+				return;
+			}
+		}
+	}
+
+	private static void drainLoop() {
+		for (;;) {
+			boolean wrote;
+
+			synchronized (writerLock) {
+				wrote = drain();
+			}
+
+			if (!wrote) {
+				LockSupport.parkNanos(IDLE_PARK_NANOS);
+			}
+		}
+	}
+
+	private static boolean drain() {
+		boolean wrote = false;
+
+		for (;;) {
+			Entry entry = buffer[(int) (head & (BUFFER_CAPACITY - 1))];
+
+			if (entry.sequence != head + 1) {
+				break;
+			}
+
+			out.print(entry.threadName);
+			out.print(": ");
+			out.println(entry.message);
+
+			entry.threadName = null;
+			entry.message = null;
+			entry.sequence = head + BUFFER_CAPACITY;
+			head++;
+			wrote = true;
+		}
+
+		if (wrote) {
+			out.flush();
+		}
+
+		return wrote;
+	}
+
+	private static final class Entry {
+		volatile long sequence;
+		String threadName;
+		String message;
+
+		Entry(long sequence) {
+			this.sequence = sequence;
 		}
 	}
 }
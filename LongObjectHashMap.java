@@ -0,0 +1,197 @@
+package edu.uwm.cs790.assignment9;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * A hash map from primitive long keys to objects using open addressing with linear probing.
+ * Keys are never boxed, so a lookup does not allocate and usually touches a single slot.
+ *
+ * Null values are not supported; a null value marks an empty slot. The map is not thread safe
+ * and is meant to be owned by a single pipeline stage or guarded by its owner.
+ *
+ * @author agent
+ *
+ * @param <V> type of the values
+ */
+public class LongObjectHashMap<V> {
+	private static final int DEFAULT_CAPACITY = 16;
+	private static final float LOAD_FACTOR = 0.5f;
+
+	private long[] keys;
+	private Object[] values;
+	private int mask;
+	private int size = 0;
+	private int resizeAt;
+
+	/**
+	 * Constructor
+	 */
+	public LongObjectHashMap() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param expectedSize int number of entries the map should hold without resizing
+	 */
+	public LongObjectHashMap(int expectedSize) {
+		int capacity = Integer.highestOneBit(Math.max((int) (expectedSize / LOAD_FACTOR), 2) - 1) << 1;
+		allocate(capacity);
+	}
+
+	private void allocate(int capacity) {
+		keys = new long[capacity];
+		values = new Object[capacity];
+		mask = capacity - 1;
+		resizeAt = (int) (capacity * LOAD_FACTOR);
+	}
+
+	/**
+	 * @param key long key
+	 * @return the value for the key, or null if there is none
+	 */
+	public V get(long key) {
+		return getOrDefault(key, null);
+	}
+
+	/**
+	 * @param key long key
+	 * @param defaultValue V returned when the key is not in the map
+	 * @return the value for the key, or defaultValue if there is none
+	 */
+	@SuppressWarnings("unchecked")
+	public V getOrDefault(long key, V defaultValue) {
+		for (int i = index(key); ; i = (i + 1) & mask) {
+			Object value = values[i];
+
+			if (value == null) {
+				return defaultValue;
+			} else if (keys[i] == key) {
+				return (V) value;
+			}
+		}
+	}
+
+	public boolean containsKey(long key) {
+		return get(key) != null;
+	}
+
+	/**
+	 * @param key long key
+	 * @param value V value, must not be null
+	 * @return the previous value for the key, or null if there was none
+	 */
+	@SuppressWarnings("unchecked")
+	public V put(long key, V value) {
+		if (value == null) {
+			throw new IllegalArgumentException("null values are not supported");
+		}
+
+		int i = index(key);
+
+		for (; values[i] != null; i = (i + 1) & mask) {
+			if (keys[i] == key) {
+				V previous = (V) values[i];
+				values[i] = value;
+				return previous;
+			}
+		}
+
+		keys[i] = key;
+		values[i] = value;
+
+		if (++size > resizeAt) {
+			rehash(keys.length << 1);
+		}
+
+		return null;
+	}
+
+	/**
+	 * @param key long key
+	 * @return the removed value, or null if the key was not in the map
+	 */
+	@SuppressWarnings("unchecked")
+	public V remove(long key) {
+		for (int i = index(key); values[i] != null; i = (i + 1) & mask) {
+			if (keys[i] == key) {
+				V previous = (V) values[i];
+				shiftBack(i);
+				size--;
+				return previous;
+			}
+		}
+
+		return null;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Passes every value in the map to an action, in no particular order.
+	 * The map must not be changed by the action.
+	 *
+	 * @param action Consumer of the values
+	 */
+	@SuppressWarnings("unchecked")
+	public void forEachValue(Consumer<? super V> action) {
+		for (int i = 0; i < values.length; i++) {
+			if (values[i] != null) {
+				action.accept((V) values[i]);
+			}
+		}
+	}
+
+	public void clear() {
+		Arrays.fill(values, null);
+		size = 0;
+	}
+
+	// close the gap left by a removal so later entries stay reachable from their home slot
+	private void shiftBack(int gap) {
+		for (int i = (gap + 1) & mask; values[i] != null; i = (i + 1) & mask) {
+			int home = index(keys[i]);
+
+			if (((i - home) & mask) >= ((i - gap) & mask)) {
+				keys[gap] = keys[i];
+				values[gap] = values[i];
+				gap = i;
+			}
+		}
+
+		values[gap] = null;
+	}
+
+	private void rehash(int capacity) {
+		long[] oldKeys = keys;
+		Object[] oldValues = values;
+
+		allocate(capacity);
+
+		for (int j = 0; j < oldValues.length; j++) {
+			if (oldValues[j] != null) {
+				int i = index(oldKeys[j]);
+
+				while (values[i] != null) {
+					i = (i + 1) & mask;
+				}
+
+				keys[i] = oldKeys[j];
+				values[i] = oldValues[j];
+			}
+		}
+	}
+
+	private int index(long key) {
+		long h = key * 0x9e3779b97f4a7c15L;
+		return (int) (h ^ (h >>> 32)) & mask;
+	}
+}
@@ -0,0 +1,33 @@
+package edu.uwm.cs790.assignment9;
+
+/**
+ * A {@link RWRenderer} that draws nothing, for runs that only measure the walk and the monitor.
+ * 
+ * @author agent
+ */
+public class NullRenderer implements RWRenderer {
+
+	@Override
+	public void init(int n) {
+	}
+
+	@Override
+	public void drawArea(RWBoundary area) {
+	}
+
+	@Override
+	public void drawHeatmap(RWHeatmap heatmap) {
+	}
+
+	@Override
+	public void drawWalkers(RWWalkerStore store) {
+	}
+
+	@Override
+	public void show() {
+	}
+
+	@Override
+	public void close() {
+	}
+}
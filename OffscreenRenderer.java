@@ -0,0 +1,153 @@
+package edu.uwm.cs790.assignment9;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import javax.imageio.ImageIO;
+
+/**
+ * A {@link RWRenderer} that draws into an offscreen {@link BufferedImage} and writes every
+ * few frames to a directory as numbered PNG files. It never opens a window or touches StdDraw,
+ * so it runs on a machine without a display (with -Djava.awt.headless=true).
+ * 
+ * Each lattice cell is a square block of pixels, written straight into the pixels of the image
+ * rather than filled through Graphics2D. What is painted each frame is decided by {@link RasterRenderer},
+ * so frames look the same as in {@link StdDrawRenderer}.
+ * 
+ * @author agent
+ */
+public class OffscreenRenderer extends RasterRenderer {
+	public static final int DEFAULT_CELL_PIXELS = 4;
+	
+	private static final Color BACKGROUND = Color.GRAY;
+	private static final Color VISITED = Color.WHITE;
+	
+	private final File directory;
+	private final int cellPixels;
+	private final int writeEvery;
+	private BufferedImage image;
+	private Graphics2D graphics;
+	private int[] pixels;
+	private int size;
+	private long frameCount = 0;
+	private long framesWritten = 0;
+	
+	/**
+	 * Constructor that writes every frame.
+	 * 
+	 * @param directory File directory the frames are written to, created if needed
+	 */
+	public OffscreenRenderer(File directory) {
+		this(directory, DEFAULT_CELL_PIXELS, 1);
+	}
+	
+	/**
+	 * Constructor
+	 * 
+	 * @param directory File directory the frames are written to, created if needed
+	 * @param cellPixels int width in pixels of one lattice cell
+	 * @param writeEvery int only every writeEvery-th frame is written, 0 to write none
+	 */
+	public OffscreenRenderer(File directory, int cellPixels, int writeEvery) {
+		if (cellPixels < 1) {
+			throw new IllegalArgumentException("cellPixels must be positive: " + cellPixels);
+		}
+		
+		this.directory = directory;
+		this.cellPixels = cellPixels;
+		this.writeEvery = writeEvery;
+	}
+
+	@Override
+	public void init(int n) {
+		reset(n);
+		
+		size = (2 * n + 1) * cellPixels;
+		image = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+		pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+		graphics = image.createGraphics();
+		graphics.setColor(BACKGROUND);
+		graphics.fillRect(0, 0, size, size);
+		
+		if (directory != null && !directory.isDirectory() && !directory.mkdirs()) {
+			Logger.warn("Could not create frame directory " + directory);
+		}
+	}
+
+	@Override
+	public void show() {
+		fullFrame = false;
+		frameCount++;
+		
+		if (writeEvery > 0 && directory != null && frameCount % writeEvery == 0) {
+			File file = new File(directory, String.format("frame-%06d.png", framesWritten));
+			
+			try {
+				ImageIO.write(image, "png", file);
+				framesWritten++;
+			} catch (IOException e) {
+				Logger.warn(() -> "Could not write frame " + file + ": " + e.getMessage());
+			}
+		}
+	}
+
+	@Override
+	public void close() {
+		if (graphics != null) {
+			graphics.dispose();
+		}
+	}
+	
+	/**
+	 * @return BufferedImage the walk is drawn into
+	 */
+	public BufferedImage getImage() {
+		return image;
+	}
+	
+	public long getFrameCount() {
+		return frameCount;
+	}
+	
+	public long getFramesWritten() {
+		return framesWritten;
+	}
+	
+	// outline through the centres of the cells on the area's limits, like StdDrawRenderer
+	@Override
+	protected void outline(RWBoundary area) {
+		int half = cellPixels / 2;
+		int left = column(area.getLeftLimit()) + half;
+		int top = row(area.getTopLimit()) + half;
+		
+		graphics.setColor(VISITED);
+		graphics.drawRect(left, top, 2 * area.bound * cellPixels, 2 * area.bound * cellPixels);
+	}
+	
+	@Override
+	protected void fillCell(int x, int y, int argb) {
+		int left = column(x), top = row(y);
+		
+		if (left < 0 || top < 0 || left >= size || top >= size) {
+			return; //off the image
+		}
+		
+		for (int row = top, end = top + cellPixels; row < end; row++) {
+			int start = row * size + left;
+			Arrays.fill(pixels, start, start + cellPixels, argb);
+		}
+	}
+	
+	// y grows upwards on the lattice and downwards in the image
+	private int column(int x) {
+		return (x + n) * cellPixels;
+	}
+	
+	private int row(int y) {
+		return (n - y) * cellPixels;
+	}
+}
@@ -0,0 +1,39 @@
+/**
+ * Title: OrderCodec.java
+ * Function:
+ * Binary encoding of one type of payload order.
+ * History:
+ *  Date         Author              Changes
+ *  10.17.2026   agent@local         initial
+**/
+
+package edu.uwm.basecso;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Writes and reads the order of a CSOPayload of one type, for the CSOMessageCodec.
+ * Each order type is registered with an OrderCodecRegistry under its own tag.
+ *
+ * An implementation writes only the fields of the order, straight into the buffer,
+ * typically with Varints, and reads them back in the same order.
+ *
+ * @author agent
+ * @param <T> The type of the order.
+ */
+public interface OrderCodec<T> {
+
+    /**
+     * @param order T order to write, never null
+     * @param out ByteBuffer to write to
+     * @throws java.nio.BufferOverflowException if the buffer fills up
+     */
+    void encode(T order, ByteBuffer out);
+
+    /**
+     * @param in ByteBuffer to read from
+     * @return T order read
+     * @throws java.nio.BufferUnderflowException if the buffer ends in the middle of the order
+     */
+    T decode(ByteBuffer in);
+}
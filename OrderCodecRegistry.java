@@ -0,0 +1,95 @@
+/**
+ * Title: OrderCodecRegistry.java
+ * Function:
+ * The order types a CSOMessageCodec can encode, by tag.
+ * History:
+ *  Date         Author              Changes
+ *  10.17.2026   agent@local         initial
+**/
+
+package edu.uwm.basecso;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps each order type a CSOMessageCodec can encode to the tag written in front of it and the
+ * OrderCodec that writes it, so new order types can be added without changing the codec.
+ *
+ * Tags are small positive numbers that the sender and receiver must agree on; 0 is kept for
+ * a payload with no order. An order is matched by its exact class, not by superclass.
+ * Types are usually registered at startup, but registering is safe while messages are being coded.
+ *
+ * @author agent
+ */
+public final class OrderCodecRegistry {
+    public static final int NO_ORDER = 0;
+
+    private final ConcurrentHashMap<Class<?>, Entry<?>> byType = new ConcurrentHashMap<>();
+    private volatile Entry<?>[] byTag = new Entry<?>[16];
+
+    /**
+     * Registers an order type.
+     *
+     * @param <T> The type of the order.
+     * @param tag int tag written in front of orders of the type, greater than 0
+     * @param type Class of the order
+     * @param codec OrderCodec that writes and reads orders of the type
+     * @throws IllegalArgumentException if the tag is not positive, or the tag or type is already registered
+     */
+    public synchronized <T> void register(int tag, Class<T> type, OrderCodec<T> codec) {
+        if (tag <= NO_ORDER) {
+            throw new IllegalArgumentException("Order tag must be positive: " + tag);
+        }
+
+        if (tag < byTag.length && byTag[tag] != null) {
+            throw new IllegalArgumentException("Order tag " + tag + " is already registered to " + byTag[tag].type.getName());
+        }
+
+        if (byType.containsKey(type)) {
+            throw new IllegalArgumentException("Order type " + type.getName() + " is already registered");
+        }
+
+        Entry<?>[] tags = Arrays.copyOf(byTag, Math.max(byTag.length, tag + 1));
+        Entry<T> entry = new Entry<>(tag, type, codec);
+        tags[tag] = entry;
+
+        byType.put(type, entry);
+        byTag = tags;
+    }
+
+    /**
+     * @param type Class of an order
+     * @return Entry for the type, or null if it is not registered
+     */
+    Entry<?> forType(Class<?> type) {
+        return byType.get(type);
+    }
+
+    /**
+     * @param tag int tag read in front of an order
+     * @return Entry for the tag, or null if it is not registered
+     */
+    Entry<?> forTag(long tag) {
+        Entry<?>[] tags = byTag;
+
+        return tag > NO_ORDER && tag < tags.length ? tags[(int) tag] : null;
+    }
+
+    static final class Entry<T> {
+        final int tag;
+        final Class<T> type;
+        final OrderCodec<T> codec;
+
+        Entry(int tag, Class<T> type, OrderCodec<T> codec) {
+            this.tag = tag;
+            this.type = type;
+            this.codec = codec;
+        }
+
+        void encode(Object order, ByteBuffer out) {
+            codec.encode(type.cast(order), out);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+/**
+ * Title: OverflowPolicy.java
+ * Function:
+ *  Policies for a CSO whose message queue is full.
+ * History:     
+ *  Date         Author              Changes
+ *  10.17.2026   agent@local         initial
+**/
+
+package edu.uwm.basecso;
+
+/**
+ * Decides what a CSO does with a message that arrives while its message queue is full.
+ * 
+ * @author agent
+ */
+public enum OverflowPolicy {
+	/**
+	 * Wait up to the CSO's block timeout for room. The message is rejected if the queue is still full.
+	 */
+	BLOCK,
+	
+	/**
+	 * Drop the oldest queued message to make room. The new message is always accepted.
+	 */
+	DROP_OLDEST,
+	
+	/**
+	 * Drop the new message and keep everything already queued.
+	 */
+	DROP_NEWEST,
+	
+	/**
+	 * Reject the new message straight away so the sender can back off.
+	 */
+	REJECT
+}
@@ -0,0 +1,51 @@
+package edu.uwm.cs790.assignment9;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The StageMetrics of every stage in one pipeline, in the order the stages registered.
+ * A monitor owns one instance and hands it down the pipeline so each stage can register itself.
+ *
+ * The round trip of a traced report ends at the walker, so it is kept by RandomWalker.getRoundTripNanos().
+ *
+ * @author agent
+ */
+public class PipelineMetrics {
+	private final Map<String, StageMetrics> stages = new LinkedHashMap<>();
+
+	/**
+	 * Returns the metrics for a stage, creating them the first time the stage asks.
+	 *
+	 * @param name String name of the stage
+	 * @return StageMetrics for the stage
+	 */
+	public synchronized StageMetrics stage(String name) {
+		return stages.computeIfAbsent(name, StageMetrics::new);
+	}
+
+	public synchronized List<StageMetrics> getStages() {
+		return new ArrayList<>(stages.values());
+	}
+
+	public void reset() {
+		for (StageMetrics stage : getStages()) {
+			stage.reset();
+		}
+	}
+
+	/**
+	 * @return String summary of every stage, one per line
+	 */
+	public String report() {
+		StringBuilder report = new StringBuilder("Pipeline stage metrics:");
+
+		for (StageMetrics stage : getStages()) {
+			report.append(System.lineSeparator()).append("  ").append(stage.summary());
+		}
+
+		return report.toString();
+	}
+}
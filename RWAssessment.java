@@ -6,11 +6,13 @@
  * History:     
  *  Date         Author              Changes
  *  10.24.2021   lghoward@uwm.edu    initial
+ *  10.17.2026   agent@local         carry the TraceContext of the report
 **/
 
 package edu.uwm.cs790.assignment9;
 
 import edu.uwm.basecso.Messageable;
+import edu.uwm.basecso.TraceContext;
 
 /**
  * Simple wrapper to represent a situation assessment.
@@ -21,6 +23,7 @@ import edu.uwm.basecso.Messageable;
 public class RWAssessment {
     public final RWDirectives directives;
     public final Messageable to;
+    public final TraceContext trace;
     
   
     /**
@@ -30,7 +33,19 @@ public class RWAssessment {
      * @param m Messageable
      */
     public RWAssessment(RWDirectives d, Messageable m) {
+      this(d, m, null);
+    }
+    
+    /**
+     * Constructor stores directives, message and the trace of the report they answer
+     * 
+     * @param d RWDirective
+     * @param m Messageable
+     * @param t TraceContext, or null if the report was not traced
+     */
+    public RWAssessment(RWDirectives d, Messageable m, TraceContext t) {
       this.directives = d;
       this.to = m;
+      this.trace = t;
     }
 }
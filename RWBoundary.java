@@ -5,6 +5,7 @@
  * History:     
  *  Date         Author              Changes
  *  10.24.2021   lghoward@uwm.edu    initial
+ *  10.17.2026   agent@local         equal when bound and center are
 **/
 
 package edu.uwm.cs790.assignment9;
@@ -13,12 +14,19 @@ import java.awt.Point;
 
 /**
  * Simple wrapper to represent a square boundary.
+ * Two boundaries with the same bound and center are equal, so a boundary
+ * decoded from a message matches the one it was encoded from.
  * 
  * @author lonny
  */
 	
 public class RWBoundary {
 
+    /**
+     * Shared boundary used for a walker that has not registered one.
+     */
+    public static final RWBoundary DEFAULT = new RWBoundary(1);
+
     public final int bound;
     public final Point center;
 
@@ -54,4 +62,50 @@ public class RWBoundary {
     public int getBottomLimit() {
     	return center.y - bound;
     }
+    
+    @Override
+    public boolean equals(Object o) {
+    	if (this == o) {
+    		return true;
+    	}
+    	
+    	if (!(o instanceof RWBoundary)) {
+    		return false;
+    	}
+    	
+    	RWBoundary other = (RWBoundary) o;
+    	
+    	return bound == other.bound && center.x == other.center.x && center.y == other.center.y;
+    }
+    
+    @Override
+    public int hashCode() {
+    	return (bound * 31 + center.x) * 31 + center.y;
+    }
+    
+    /**
+     * Works out which directions keep a walker at the given position inside the boundary.
+     * Uses primitives only so callers can scan many positions without allocating.
+     * 
+     * @param x int position
+     * @param y int position
+     * @return int mask of RWDirectives direction bits that are allowed
+     */
+    public int directiveMask(int x, int y) {
+    	int mask = RWDirectives.ALL_DIRECTIONS;
+    	
+    	if (x < center.x && (x - 1) <= getLeftLimit()) {
+    		mask &= ~RWDirectives.EAST; //East moves toward smaller x
+    	} else if (x > center.x && (x + 1) >= getRightLimit()) {
+    		mask &= ~RWDirectives.WEST;
+    	}
+    	
+    	if (y < center.y && (y - 1) <= getBottomLimit()) {
+    		mask &= ~RWDirectives.SOUTH;
+    	} else if (y > center.y && (y + 1) >= getTopLimit()) {
+    		mask &= ~RWDirectives.NORTH;
+    	}
+    	
+    	return mask;
+    }
 }
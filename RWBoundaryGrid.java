@@ -0,0 +1,220 @@
+/**
+ * Title: RWBoundaryGrid.java
+ * Function:
+ *  Uniform grid index over boundary areas.
+ * History:
+ *  Date         Author              Changes
+ *  10.17.2026   agent@local         initial
+**/
+
+package edu.uwm.cs790.assignment9;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A uniform grid over the plane that indexes RWBoundary areas by the cells they overlap,
+ * so the areas that contain or are near a point can be found by looking at a few cells
+ * instead of every area.
+ *
+ * Areas and queries use the same inclusive limits as RWBoundary. Distances are measured
+ * per axis (a point is within distance d of an area if it is inside the area grown by d on every side),
+ * which matches the square areas and lattice moves of the walk.
+ *
+ * The grid is not thread safe and is meant to be owned by a single stage or filled before it is shared.
+ *
+ * @author agent
+ */
+public class RWBoundaryGrid {
+	public static final int DEFAULT_CELL_SIZE = 16;
+
+	private final int cellSize;
+	private final LongObjectHashMap<ArrayList<RWBoundary>> cells = new LongObjectHashMap<>();
+	private int size = 0;
+
+	/**
+	 * Constructor
+	 */
+	public RWBoundaryGrid() {
+		this(DEFAULT_CELL_SIZE);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param cellSize int width of a grid cell, ideally close to the typical area size
+	 */
+	public RWBoundaryGrid(int cellSize) {
+		if (cellSize < 1) {
+			throw new IllegalArgumentException("cellSize must be positive: " + cellSize);
+		}
+
+		this.cellSize = cellSize;
+	}
+
+	/**
+	 * Adds an area to every cell it overlaps.
+	 *
+	 * @param area RWBoundary to index
+	 */
+	public void add(RWBoundary area) {
+		int minX = cell(area.getLeftLimit()), maxX = cell(area.getRightLimit());
+		int minY = cell(area.getBottomLimit()), maxY = cell(area.getTopLimit());
+
+		for (int cx = minX; cx <= maxX; cx++) {
+			for (int cy = minY; cy <= maxY; cy++) {
+				long key = key(cx, cy);
+				ArrayList<RWBoundary> list = cells.get(key);
+
+				if (list == null) {
+					list = new ArrayList<>(2);
+					cells.put(key, list);
+				}
+
+				list.add(area);
+			}
+		}
+
+		size++;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Finds one area that contains a point, preferring the smallest when areas overlap.
+	 *
+	 * @param x int position
+	 * @param y int position
+	 * @return RWBoundary containing the point, or null if there is none
+	 */
+	public RWBoundary findContaining(int x, int y) {
+		ArrayList<RWBoundary> list = cells.get(key(cell(x), cell(y)));
+		RWBoundary best = null;
+
+		if (list != null) {
+			for (int i = 0; i < list.size(); i++) {
+				RWBoundary area = list.get(i);
+
+				if (distance(area, x, y) == 0 && (best == null || area.bound < best.bound)) {
+					best = area;
+				}
+			}
+		}
+
+		return best;
+	}
+
+	/**
+	 * Collects every area that contains a point.
+	 *
+	 * @param x int position
+	 * @param y int position
+	 * @param out List the areas are added to
+	 * @return List that was passed in
+	 */
+	public List<RWBoundary> findContaining(int x, int y, List<RWBoundary> out) {
+		return findNear(x, y, 0, out);
+	}
+
+	/**
+	 * Collects every area within a distance of a point, each area once.
+	 *
+	 * @param x int position
+	 * @param y int position
+	 * @param radius int maximum distance from the point
+	 * @param out List the areas are added to
+	 * @return List that was passed in
+	 */
+	public List<RWBoundary> findNear(int x, int y, int radius, List<RWBoundary> out) {
+		int left = x - radius, right = x + radius;
+		int bottom = y - radius, top = y + radius;
+
+		for (int cx = cell(left), maxX = cell(right); cx <= maxX; cx++) {
+			for (int cy = cell(bottom), maxY = cell(top); cy <= maxY; cy++) {
+				ArrayList<RWBoundary> list = cells.get(key(cx, cy));
+
+				if (list == null) {
+					continue;
+				}
+
+				for (int i = 0; i < list.size(); i++) {
+					RWBoundary area = list.get(i);
+
+					// an area spanning several cells is only reported from the cell holding the
+					// lower left corner of its overlap with the query, so it is reported once
+					if (distance(area, x, y) <= radius
+							&& cell(Math.max(area.getLeftLimit(), left)) == cx
+							&& cell(Math.max(area.getBottomLimit(), bottom)) == cy) {
+						out.add(area);
+					}
+				}
+			}
+		}
+
+		return out;
+	}
+
+	/**
+	 * Finds the closest area to a point, searching outward one ring of cells at a time.
+	 *
+	 * @param x int position
+	 * @param y int position
+	 * @param maxRadius int furthest distance to search
+	 * @return RWBoundary closest to the point, or null if none is within maxRadius
+	 */
+	public RWBoundary findNearest(int x, int y, int maxRadius) {
+		RWBoundary containing = findContaining(x, y);
+
+		if (containing != null) {
+			return containing;
+		}
+
+		ArrayList<RWBoundary> candidates = new ArrayList<>();
+
+		for (int radius = Math.min(cellSize, maxRadius); ; radius = Math.min(radius * 2, maxRadius)) {
+			candidates.clear();
+			findNear(x, y, radius, candidates);
+
+			if (!candidates.isEmpty() || radius >= maxRadius) {
+				break;
+			}
+		}
+
+		RWBoundary best = null;
+		int bestDistance = Integer.MAX_VALUE;
+
+		for (RWBoundary area : candidates) {
+			int d = distance(area, x, y);
+
+			if (d < bestDistance) {
+				best = area;
+				bestDistance = d;
+			}
+		}
+
+		return best;
+	}
+
+	/**
+	 * @param area RWBoundary
+	 * @param x int position
+	 * @param y int position
+	 * @return int distance along the furthest axis from the point to the area, 0 if the area contains it
+	 */
+	public static int distance(RWBoundary area, int x, int y) {
+		int dx = Math.max(0, Math.max(area.getLeftLimit() - x, x - area.getRightLimit()));
+		int dy = Math.max(0, Math.max(area.getBottomLimit() - y, y - area.getTopLimit()));
+
+		return Math.max(dx, dy);
+	}
+
+	private int cell(int coordinate) {
+		return Math.floorDiv(coordinate, cellSize);
+	}
+
+	private static long key(int cx, int cy) {
+		return ((long) cx << 32) | (cy & 0xffffffffL);
+	}
+}
@@ -5,6 +5,7 @@
  * History:     
  *  Date         Author              Changes
  *  10.24.2021   lghoward@uwm.edu    initial
+ *  10.17.2026   agent@local         packed into a mask with one shared instance per mask
 **/
 
 package edu.uwm.cs790.assignment9;
@@ -12,29 +13,96 @@ package edu.uwm.cs790.assignment9;
 /**
  * Indicates whether movement in a particular direction is allowed.
  * 
+ * The directions are packed into an int mask of the NORTH, SOUTH, EAST and WEST bits.
+ * There are only 16 possible masks, so there is exactly one shared instance per mask and 
+ * instances are obtained with fromMask() or of() rather than constructed.
+ * Shared instances can be compared with ==.
+ * 
  * @author lonny
  */
-public class RWDirectives {
+public final class RWDirectives {
+    public static final int NORTH = 1;
+    public static final int SOUTH = 1 << 1;
+    public static final int EAST = 1 << 2;
+    public static final int WEST = 1 << 3;
+    public static final int ALL_DIRECTIONS = NORTH | SOUTH | EAST | WEST;
+    
+    private static final RWDirectives[] INSTANCES = new RWDirectives[ALL_DIRECTIONS + 1];
+    
+    static {
+        for (int mask = 0; mask <= ALL_DIRECTIONS; mask++) {
+            INSTANCES[mask] = new RWDirectives(mask);
+        }
+    }
+    
+    /**
+     * Directives that allow every direction.
+     */
+    public static final RWDirectives ALL = INSTANCES[ALL_DIRECTIONS];
 
-    public final boolean isNorthAllowed;
-    public final boolean isSouthAllowed;
-    public final boolean isEastAllowed;
-    public final boolean isWestAllowed;
+    public final int mask;
+    
+    private RWDirectives(int mask) {
+        this.mask = mask;
+    }
     
     /**
-	* Sets directives for all directions, allowNorth, allowSouth, allowEast, allowWest
+	* Gets the directives for all directions, allowNorth, allowSouth, allowEast, allowWest
 	* Can modify the directions in which randomWalk is allowed to move.
 	* 
 	* @param allowNorth boolean that indicates if travel is allowed north
-	* @param allowSouth boolean that indicates if travel is allowed north
-	* @param allowEast boolean that indicates if travel is allowed north
-	* @param allowWest boolean that indicates if travel is allowed north
+	* @param allowSouth boolean that indicates if travel is allowed south
+	* @param allowEast boolean that indicates if travel is allowed east
+	* @param allowWest boolean that indicates if travel is allowed west
+	* @return the shared RWDirectives for those directions
 	*/
-    public RWDirectives(boolean allowNorth, boolean allowSouth, boolean allowEast, boolean allowWest) {
-        this.isNorthAllowed = allowNorth;
-        this.isSouthAllowed = allowSouth;
-        this.isEastAllowed = allowEast;
-        this.isWestAllowed = allowWest;
+    public static RWDirectives of(boolean allowNorth, boolean allowSouth, boolean allowEast, boolean allowWest) {
+        return INSTANCES[(allowNorth ? NORTH : 0) | (allowSouth ? SOUTH : 0) | (allowEast ? EAST : 0) | (allowWest ? WEST : 0)];
+    }
+    
+    /**
+     * Gets the directives for a mask of direction bits.
+     * 
+     * @param mask int of NORTH, SOUTH, EAST and WEST bits that are allowed
+     * @return the shared RWDirectives for the mask
+     */
+    public static RWDirectives fromMask(int mask) {
+        return INSTANCES[mask & ALL_DIRECTIONS];
+    }
+    
+    /**
+     * @return int of NORTH, SOUTH, EAST and WEST bits that are allowed
+     */
+    public int toMask() {
+        return mask;
+    }
+    
+    /**
+     * @param directions int of one or more direction bits
+     * @return boolean whether all of the given directions are allowed
+     */
+    public boolean allows(int directions) {
+        return (mask & directions) == directions;
     }
     
+    public boolean isNorthAllowed() {
+        return (mask & NORTH) != 0;
+    }
+    
+    public boolean isSouthAllowed() {
+        return (mask & SOUTH) != 0;
+    }
+    
+    public boolean isEastAllowed() {
+        return (mask & EAST) != 0;
+    }
+    
+    public boolean isWestAllowed() {
+        return (mask & WEST) != 0;
+    }
+    
+    @Override
+    public String toString() {
+        return "RWDirectives[" + (isNorthAllowed() ? "N" : "") + (isSouthAllowed() ? "S" : "") + (isEastAllowed() ? "E" : "") + (isWestAllowed() ? "W" : "") + "]";
+    }
 }
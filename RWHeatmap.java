@@ -0,0 +1,236 @@
+/**
+ * Title: RWHeatmap.java
+ * Function:
+ *  Counts how often each lattice cell is visited during a walk.
+ * History:
+ *  Date         Author              Changes
+ *  10.17.2026   agent@local         initial
+**/
+
+package edu.uwm.cs790.assignment9;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A visit count for every cell of the lattice from -n to n on both axes, incremented by the walkers
+ * on every step, so where the walkers actually went can be drawn or analysed once the squares painted
+ * for them are gone.
+ *
+ * The counts are int cells in a direct buffer outside the heap, in rows from y = -n up to y = n and,
+ * within a row, from x = -n to x = n. Walkers on any thread add to them with a single atomic add and
+ * no lock; steps that land outside the lattice are only counted in total. Readers see each count
+ * on its own, so a copy taken while walkers are stepping is not one instant of the walk.
+ *
+ * @author agent
+ */
+public class RWHeatmap {
+	private static final VarHandle COUNTS = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+
+	// colours the log of a count runs through from fewest to most visits
+	private static final int[] RAMP = {0x000080, 0x0080ff, 0x00e0a0, 0xffe000, 0xff6000, 0xc00000};
+
+	private final int n;
+	private final int width;
+	private final ByteBuffer counts;
+	private final LongAdder outsideVisits = new LongAdder();
+
+	/**
+	 * Constructor
+	 *
+	 * @param n int the heatmap covers -n to n on both axes
+	 */
+	public RWHeatmap(int n) {
+		if (n < 0) {
+			throw new IllegalArgumentException("n must not be negative: " + n);
+		}
+
+		this.n = n;
+		this.width = 2 * n + 1;
+		this.counts = ByteBuffer.allocateDirect(Math.multiplyExact(Math.multiplyExact(width, width), Integer.BYTES));
+	}
+
+	/**
+	 * Counts a visit to a cell. Safe to call from any number of threads at once.
+	 *
+	 * @param x int x of the cell
+	 * @param y int y of the cell
+	 */
+	public void visit(int x, int y) {
+		if (contains(x, y)) {
+			COUNTS.getAndAdd(counts, offset(x, y), 1);
+		} else {
+			outsideVisits.increment();
+		}
+	}
+
+	/**
+	 * @param x int x of the cell
+	 * @param y int y of the cell
+	 * @return int visits to the cell, 0 outside the heatmap
+	 */
+	public int getCount(int x, int y) {
+		return contains(x, y) ? (int) COUNTS.getOpaque(counts, offset(x, y)) : 0;
+	}
+
+	public boolean contains(int x, int y) {
+		return x >= -n && x <= n && y >= -n && y <= n;
+	}
+
+	/**
+	 * @return int the heatmap covers -n to n on both axes
+	 */
+	public int getExtent() {
+		return n;
+	}
+
+	/**
+	 * @return int number of cells in a row or a column
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * @return int visits to the most visited cell
+	 */
+	public int getMaxCount() {
+		int max = 0;
+
+		for (int i = 0, cells = width * width; i < cells; i++) {
+			max = Math.max(max, (int) COUNTS.getOpaque(counts, i * Integer.BYTES));
+		}
+
+		return max;
+	}
+
+	/**
+	 * @return long visits to every cell together
+	 */
+	public long getTotalVisits() {
+		long total = 0;
+
+		for (int i = 0, cells = width * width; i < cells; i++) {
+			total += (int) COUNTS.getOpaque(counts, i * Integer.BYTES);
+		}
+
+		return total;
+	}
+
+	/**
+	 * @return long steps that landed outside the heatmap
+	 */
+	public long getOutsideVisits() {
+		return outsideVisits.sum();
+	}
+
+	/**
+	 * Copies the counts, in the heatmap's row order.
+	 *
+	 * @param into int[] of at least getWidth() * getWidth() counts, or null to allocate one
+	 * @return int[] the counts were copied into
+	 */
+	public int[] copyCounts(int[] into) {
+		int cells = width * width;
+
+		if (into == null) {
+			into = new int[cells];
+		}
+
+		for (int i = 0; i < cells; i++) {
+			into[i] = (int) COUNTS.getOpaque(counts, i * Integer.BYTES);
+		}
+
+		return into;
+	}
+
+	/**
+	 * Colours every cell by its count on a log scale relative to the most visited cell,
+	 * in the heatmap's row order, as packed alpha, red, green, and blue bytes.
+	 *
+	 * @param into int[] of at least getWidth() * getWidth() colours, or null to allocate one
+	 * @param unvisited int colour of cells nobody has visited
+	 * @return int[] the colours were written into
+	 */
+	public int[] toColors(int[] into, int unvisited) {
+		into = copyCounts(into);
+
+		int max = 0;
+		for (int i = 0, cells = width * width; i < cells; i++) {
+			max = Math.max(max, into[i]);
+		}
+
+		double scale = 1.0 / Math.log1p(Math.max(max, 1));
+
+		for (int i = 0, cells = width * width; i < cells; i++) {
+			into[i] = into[i] == 0 ? unvisited : heatColor(Math.log1p(into[i]) * scale);
+		}
+
+		return into;
+	}
+
+	/**
+	 * Maps a fraction of the hottest cell onto the colour ramp.
+	 *
+	 * @param fraction double from 0 for the coolest to 1 for the hottest
+	 * @return int opaque colour as packed alpha, red, green, and blue bytes
+	 */
+	public static int heatColor(double fraction) {
+		double position = Math.max(0, Math.min(1, fraction)) * (RAMP.length - 1);
+		int stop = Math.min((int) position, RAMP.length - 2);
+		double t = position - stop;
+
+		int from = RAMP[stop], to = RAMP[stop + 1];
+		int red = blend(from >> 16 & 0xff, to >> 16 & 0xff, t);
+		int green = blend(from >> 8 & 0xff, to >> 8 & 0xff, t);
+		int blue = blend(from & 0xff, to & 0xff, t);
+
+		return 0xff000000 | red << 16 | green << 8 | blue;
+	}
+
+	/**
+	 * Writes the raw counts to a file as little-endian ints in the heatmap's row order,
+	 * getWidth() * getWidth() of them with no header, replacing the file if it exists.
+	 *
+	 * @param file Path to write
+	 * @throws IOException if the file cannot be written
+	 */
+	public void writeCounts(Path file) throws IOException {
+		int[] snapshot = copyCounts(null);
+		ByteBuffer out = ByteBuffer.allocate(snapshot.length * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+		out.asIntBuffer().put(snapshot);
+
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			while (out.hasRemaining()) {
+				channel.write(out);
+			}
+		}
+	}
+
+	/**
+	 * Sets every count back to zero. Visits made while resetting may or may not be kept.
+	 */
+	public void reset() {
+		for (int i = 0, cells = width * width; i < cells; i++) {
+			COUNTS.setOpaque(counts, i * Integer.BYTES, 0);
+		}
+
+		outsideVisits.reset();
+	}
+
+	private int offset(int x, int y) {
+		return ((y + n) * width + x + n) * Integer.BYTES;
+	}
+
+	private static int blend(int from, int to, double t) {
+		return (int) Math.round(from + (to - from) * t);
+	}
+}
@@ -0,0 +1,83 @@
+package edu.uwm.cs790.assignment9;
+
+import edu.uwm.basecso.OrderCodec;
+import edu.uwm.basecso.OrderCodecRegistry;
+import edu.uwm.basecso.Varints;
+import java.awt.Point;
+import java.nio.ByteBuffer;
+
+/**
+ * The OrderCodecs for the orders the random walk sends: a walker's Point position and RWBoundary
+ * to the monitor, and RWDirectives back to the walker.
+ *
+ * @author agent
+ */
+public final class RWOrderCodecs {
+	public static final int POINT_TAG = 1;
+	public static final int BOUNDARY_TAG = 2;
+	public static final int DIRECTIVES_TAG = 3;
+
+	public static final OrderCodec<Point> POINT = new OrderCodec<Point>() {
+		@Override
+		public void encode(Point point, ByteBuffer out) {
+			Varints.putZigZag(out, point.x);
+			Varints.putZigZag(out, point.y);
+		}
+
+		@Override
+		public Point decode(ByteBuffer in) {
+			int x = Varints.getZigZagInt(in);
+			return new Point(x, Varints.getZigZagInt(in));
+		}
+	};
+
+	public static final OrderCodec<RWBoundary> BOUNDARY = new OrderCodec<RWBoundary>() {
+		@Override
+		public void encode(RWBoundary boundary, ByteBuffer out) {
+			Varints.putZigZag(out, boundary.bound);
+			POINT.encode(boundary.center, out);
+		}
+
+		@Override
+		public RWBoundary decode(ByteBuffer in) {
+			int bound = Varints.getZigZagInt(in);
+			return new RWBoundary(bound, POINT.decode(in));
+		}
+	};
+
+	// directives are interned, so reading them allocates nothing
+	public static final OrderCodec<RWDirectives> DIRECTIVES = new OrderCodec<RWDirectives>() {
+		@Override
+		public void encode(RWDirectives directives, ByteBuffer out) {
+			out.put((byte) directives.toMask());
+		}
+
+		@Override
+		public RWDirectives decode(ByteBuffer in) {
+			return RWDirectives.fromMask(in.get());
+		}
+	};
+
+	private RWOrderCodecs() {
+	}
+
+	/**
+	 * @return OrderCodecRegistry with every random walk order type registered
+	 */
+	public static OrderCodecRegistry newRegistry() {
+		OrderCodecRegistry registry = new OrderCodecRegistry();
+		registerAll(registry);
+		return registry;
+	}
+
+	/**
+	 * Registers every random walk order type under its tag.
+	 *
+	 * @param registry OrderCodecRegistry to register with
+	 */
+	public static void registerAll(OrderCodecRegistry registry) {
+		registry.register(POINT_TAG, Point.class, POINT);
+		registry.register(BOUNDARY_TAG, RWBoundary.class, BOUNDARY);
+		registry.register(DIRECTIVES_TAG, RWDirectives.class, DIRECTIVES);
+	}
+}
@@ -5,11 +5,13 @@
  * History:     
  *  Date         Author              Changes
  *  10.24.2021   lghoward@uwm.edu    initial
+ *  10.17.2026   agent@local         carry the TraceContext of the report
 **/
 
 package edu.uwm.cs790.assignment9;
 
 import edu.uwm.basecso.Messageable;
+import edu.uwm.basecso.TraceContext;
 
 /**
  * A simple class to represent a Plan.
@@ -21,6 +23,7 @@ public class RWPlan {
 
     public final RWDirectives directives;
     public final Messageable to;
+    public final TraceContext trace;
     
     /**
     * Create a plan using directives and a message
@@ -29,7 +32,19 @@ public class RWPlan {
     * @param m Messageable
     */	
     public RWPlan(RWDirectives d, Messageable m) {
+      this(d, m, null);
+    }
+    
+    /**
+    * Create a plan using directives, a message and the trace of the report it answers
+    * 
+    * @param d RWDirectives 
+    * @param m Messageable
+    * @param t TraceContext, or null if the report was not traced
+    */	
+    public RWPlan(RWDirectives d, Messageable m, TraceContext t) {
       this.directives = d;
       this.to = m;
+      this.trace = t;
     }
 }
@@ -5,80 +5,141 @@
  * History:     
  *  Date         Author              Changes
  *  10.24.2021   lghoward@uwm.edu    initial
+ *  10.17.2026   agent@local         only send directives that changed
+ *  10.17.2026   agent@local         only remember directives the walker accepted
+ *  10.17.2026   agent@local         one acknowledgement per remote walker per batch
 **/
 
 package edu.uwm.cs790.assignment9;
 
+import edu.uwm.basecso.CSOClock;
 import edu.uwm.basecso.CSOMessage;
 import edu.uwm.basecso.CSOPayload;
 import edu.uwm.basecso.PlanExecutionService;
-import java.util.Date;
 import java.util.LinkedList;
 import java.util.Queue;
-import java.util.concurrent.Exchanger;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  *  Executes a plan of type RWPlan.
  * 
+ * A directive is only sent to a walker when it differs from the last one the walker accepted,
+ * or when the optional refresh period has passed since then. A directive the walker turns away
+ * is counted as failed and sent again with the next plan for that walker. Suppressed plans still
+ * acknowledge their trace, since the walker is already following those directives: a local
+ * RandomWalker directly, anything else, such as a proxy for a walker in another process,
+ * with a message that has a trace but no payload. Those messages are sent once per walker at the
+ * end of a batch, for the latest suppressed report, and not at all when a directive sent to the
+ * walker in the same batch already carries a later trace.
+ * 
  * @author lonny
  */
 
 public class RWPlanExecutor extends PlanExecutionService{
-	private Exchanger<Queue<RWPlan>> actionPlanExchanger;
+	private StageHandoff<Queue<RWPlan>> actionPlanHandoff;
+	private PipelineMetrics metrics = new PipelineMetrics();
+	private volatile long refreshNanos = 0;
+	private final AtomicLong sentCount = new AtomicLong();
+	private final AtomicLong suppressedCount = new AtomicLong();
+	private final AtomicLong failedCount = new AtomicLong();
 	
 	public void processPlans(Queue<RWPlan> actionPlans) {
     	Logger.log("In plan executor.");
     	
-    	RWCommandProcess commandProcess = new RWCommandProcess(actionPlanExchanger);
+    	RWCommandProcess commandProcess = new RWCommandProcess(actionPlanHandoff);
     	commandProcess.processCommands();    	
     	
     	Logger.log("generatePlan run loop has completed.");
 	}
 
     /**
-     * Must set up an Exchanger to pass in and receive plan queues
+     * Must set up a StageHandoff to pass in and receive plan queues
+     * 
+     * @param handoff A StageHandoff of RWPlan queues across threads.
+     */
+    public void setHandoff(StageHandoff<Queue<RWPlan>> handoff) {
+    	this.actionPlanHandoff = handoff;
+    }
+    
+    /**
+     * Sets the PipelineMetrics the stages register their StageMetrics with.
+     * 
+     * @param metrics PipelineMetrics shared by the whole pipeline
+     */
+    public void setMetrics(PipelineMetrics metrics) {
+    	this.metrics = metrics;
+    }
+    
+    /**
+     * Resends unchanged directives to a walker once this much time has passed since they were last sent.
      * 
-     * @param exchanger An Exchanger of RWPlan queues across threads.
+     * @param period long time between refreshes, 0 to never refresh
+     * @param unit TimeUnit of the period
+     */
+    public void setDirectiveRefresh(long period, TimeUnit unit) {
+    	this.refreshNanos = unit.toNanos(period);
+    }
+    
+    /**
+     * @return long number of directives sent to walkers
+     */
+    public long getSentDirectiveCount() {
+    	return sentCount.get();
+    }
+    
+    /**
+     * @return long number of plans not sent because the walker already had the same directives
+     */
+    public long getSuppressedDirectiveCount() {
+    	return suppressedCount.get();
+    }
+    
+    /**
+     * @return long number of directives the walker turned away, for example because its connection was full
      */
-    public void setExchanger(Exchanger<Queue<RWPlan>> exchanger) {
-    	this.actionPlanExchanger = exchanger;
+    public long getFailedDirectiveCount() {
+    	return failedCount.get();
     }
     
     /**
      * Class to handle authorizing plans.
      *
      */
-    private class RWCommandProcess {		
-    	private Exchanger<Queue<RWPlan>> actionPlanExchanger;
-    	private Exchanger<Queue<RWPlan>> planExchanger = new Exchanger<Queue<RWPlan>>();
+    class RWCommandProcess {		
+    	private StageMetrics stageMetrics = metrics.stage("authorize");
+    	private StageHandoff<Queue<RWPlan>> actionPlanHandoff;
+    	private StageHandoff<Queue<RWPlan>> planHandoff;
 		private Queue<RWPlan> actionPlans = new LinkedList<>();
 		private Queue<RWPlan> plans = new LinkedList<>();
     	
-    	public RWCommandProcess(Exchanger<Queue<RWPlan>> actionPlanExchanger) {
+    	public RWCommandProcess(StageHandoff<Queue<RWPlan>> actionPlanHandoff) {
 			super();
-			this.actionPlanExchanger = actionPlanExchanger;
+			this.actionPlanHandoff = actionPlanHandoff;
+			this.planHandoff = actionPlanHandoff.getMode().newHandoff(LinkedList::new);
 		}
 
 		public void processCommands() {
 			Logger.log("Start command process.");
 
-			RWExecuteProcess executeProcess = new RWExecuteProcess(planExchanger);
+			RWExecuteProcess executeProcess = new RWExecuteProcess(planHandoff);
 			executeProcess.start();
 			
-			DualExchangeProcessor<Queue<RWPlan>, Queue<RWPlan>> processor = new DualExchangeProcessor<>(actionPlanExchanger, planExchanger, this::authorizePlans);
+			DualExchangeProcessor<Queue<RWPlan>, Queue<RWPlan>> processor = new DualExchangeProcessor<>(actionPlanHandoff, planHandoff, this::authorizePlans, stageMetrics);
 			processor.startExchange(actionPlans, plans);
 			
 			Logger.log("CommandProcess run loop has completed.");
 		}
 
 
-		private Queue<RWPlan> authorizePlans(Queue<RWPlan> actionPlans) {
-			Logger.log("Authorizing " + actionPlans.size() + " plans.");
+		Queue<RWPlan> authorizePlans(Queue<RWPlan> actionPlans, Queue<RWPlan> plans) {
+			Logger.debug(() -> "Authorizing " + actionPlans.size() + " plans.");
 			
 			while (!actionPlans.isEmpty()) {
 
 				RWPlan plan = actionPlans.poll();
 
+				stageMetrics.recordHop(plan.trace);
 				plans.add(plan);
 			}
 			
@@ -90,12 +151,15 @@ public class RWPlanExecutor extends PlanExecutionService{
      * Class to handle executing plans.
      *
      */
-    private class RWExecuteProcess extends Thread {
-    	private Exchanger<Queue<RWPlan>> planExchanger;
+    class RWExecuteProcess extends Thread {
+    	private StageMetrics stageMetrics = metrics.stage("execute");
+    	private StageHandoff<Queue<RWPlan>> planHandoff;
     	private Queue<RWPlan> plans = new LinkedList<>();
+    	private LongObjectHashMap<SentDirectives> lastSent = new LongObjectHashMap<>();
+    	private LongObjectHashMap<RWPlan> pendingAcknowledgements = new LongObjectHashMap<>();
    	
-		public RWExecuteProcess(Exchanger<Queue<RWPlan>> exchanger) {
-			this.planExchanger = exchanger;
+		public RWExecuteProcess(StageHandoff<Queue<RWPlan>> handoff) {
+			this.planHandoff = handoff;
 			
 			this.setName("Executer Thread");
 			this.setPriority(Thread.MIN_PRIORITY);
@@ -109,37 +173,105 @@ public class RWPlanExecutor extends PlanExecutionService{
 		private void processPlans() {
 			Logger.log("Start ExecuteProcess.");
 			
-			SingleExchangeProcessor<Queue<RWPlan>> processor = new SingleExchangeProcessor<>(planExchanger, this::executePlans);
+			SingleExchangeProcessor<Queue<RWPlan>> processor = new SingleExchangeProcessor<>(planHandoff, this::executePlans, stageMetrics);
 			processor.startExchange(plans);
 			
 			Logger.log("ExecuteProcess run loop has completed.");
 		}
 
 		
-		private void executePlans(Queue<RWPlan> plans) {
-			Logger.log("Executing " + plans.size() + " plans.");
+		void executePlans(Queue<RWPlan> plans) {
+			Logger.debug(() -> "Executing " + plans.size() + " plans.");
+	        
+	        long now = CSOClock.nanoTime();
 	        
 	        while (!plans.isEmpty()) {	
 	        	RWPlan plan = plans.poll();
 	        	
-	        	executePlan(plan);
+	        	executePlan(plan, now);
 	        }
+	        
+	        pendingAcknowledgements.forEachValue(plan -> plan.to.receiveMessage(new CSOMessage(null, plan.to, null, null, now, plan.trace)));
+	        pendingAcknowledgements.clear();
 		}	
 		
 	    /**
 	    * Creates message from plan.
 	    * Uses message to execute plan on randomWalk
+	    * unless the walker already has the same directives,
+	    * and records the traced report's hop through this stage.
 	    * 
 	    * @param plan RWPlan
+	    * @param now long CSOClock time of the batch
 	    */
-	    private void executePlan(RWPlan plan) {
+	    private void executePlan(RWPlan plan, long now) {
 	        if (plan.to == null) return;
 	        
-	        CSOPayload<RWDirectives> payload = new CSOPayload<RWDirectives>(plan.directives, 0, new Date(), new Date());
-	        CSOMessage message = new CSOMessage(null, plan.to, null, payload, new Date());
+	        long id = plan.to.getIdentifier();
+	        SentDirectives sent = lastSent.get(id);
+	        long refresh = refreshNanos;
+	        
+	        // directives are interned, so unchanged directives are the same instance
+	        if (sent != null && sent.directives == plan.directives && (refresh == 0 || now - sent.sentNanos < refresh)) {
+	        	suppressedCount.incrementAndGet();
+	        	
+	        	if (plan.trace != null) {
+	        		acknowledge(plan);
+	        	}
+	        } else {
+	        	CSOPayload<RWDirectives> payload = new CSOPayload<RWDirectives>(plan.directives, 0, now, now);
+	        	CSOMessage message = new CSOMessage(null, plan.to, null, payload, now, plan.trace);
+	        	
+	        	// a directive that was turned away is not remembered, so the next plan sends it again
+	        	if (!plan.to.receiveMessage(message)) {
+	        		failedCount.incrementAndGet();
+	        	} else {
+	        		sentCount.incrementAndGet();
+	        		
+	        		if (sent == null) {
+	        			sent = new SentDirectives();
+	        			lastSent.put(id, sent);
+	        		}
+	        		
+	        		// the directive's own trace acknowledges any earlier report of this batch
+	        		RWPlan pending = pendingAcknowledgements.get(id);
+	        		if (pending != null && plan.trace != null && pending.trace.sequence <= plan.trace.sequence) {
+	        			pendingAcknowledgements.remove(id);
+	        		}
+	        		
+	        		sent.directives = plan.directives;
+	        		sent.sentNanos = now;
+	        	}
+	        }
 	        
-	        plan.to.receiveMessage(message);        
+	        if (plan.trace != null) {
+	        	stageMetrics.recordHop(plan.trace);
+	        }
 	    }
+	    
+	    // a walker in this process is told directly, anything else through one message at the end of the batch
+	    private void acknowledge(RWPlan plan) {
+	    	if (plan.to instanceof RandomWalker) {
+	    		((RandomWalker) plan.to).acknowledge(plan.trace);
+	    		return;
+	    	}
+	    	
+	    	long id = plan.to.getIdentifier();
+	    	RWPlan pending = pendingAcknowledgements.get(id);
+	    	
+	    	if (pending == null || pending.trace.sequence < plan.trace.sequence) {
+	    		pendingAcknowledgements.put(id, plan);
+	    	}
+	    }
+    }
+    
+    /**
+     * The directives last sent to one walker and when.
+     *
+     */
+    private static final class SentDirectives {
+    	RWDirectives directives;
+    	long sentNanos;
     }
 	
 	
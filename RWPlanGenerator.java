@@ -11,7 +11,6 @@ package edu.uwm.cs790.assignment9;
 
 import java.util.LinkedList;
 import java.util.Queue;
-import java.util.concurrent.Exchanger;
 import edu.uwm.basecso.PlanGenerationService;
 
 /**
@@ -20,8 +19,9 @@ import edu.uwm.basecso.PlanGenerationService;
  * @author lonny and anupam
  */
 public class RWPlanGenerator extends PlanGenerationService {
-    private Exchanger<Queue<RWAssessment>> assessmentExchanger;
+    private StageHandoff<Queue<RWAssessment>> assessmentHandoff;
     private RWPlanExecutor planExecutor;
+    private PipelineMetrics metrics = new PipelineMetrics();
     
     /**
      * Constructor
@@ -43,55 +43,67 @@ public class RWPlanGenerator extends PlanGenerationService {
     public void generatePlans(Queue<RWAssessment> assessments) {
     	Logger.log("In plan generator.");
     	
-    	RWPolicyProcess policyProcess = new RWPolicyProcess(assessmentExchanger);
+    	RWPolicyProcess policyProcess = new RWPolicyProcess(assessmentHandoff);
     	policyProcess.processPolicies();  	
     	
     	Logger.log("generatePlan run loop has completed.");
     }
     
     /**
-     * Must set up an Exchanger to pass in and receive assessment queues
+     * Must set up a StageHandoff to pass in and receive assessment queues
      * 
-     * @param exchanger An Exchanger of RWAssessment queues across threads.
+     * @param handoff A StageHandoff of RWAssessment queues across threads.
      */
-    public void setExchanger(Exchanger<Queue<RWAssessment>> exchanger) {
-    	this.assessmentExchanger = exchanger;
+    public void setHandoff(StageHandoff<Queue<RWAssessment>> handoff) {
+    	this.assessmentHandoff = handoff;
+    }
+    
+    /**
+     * Sets the PipelineMetrics the stages register their StageMetrics with.
+     * 
+     * @param metrics PipelineMetrics shared by the whole pipeline
+     */
+    public void setMetrics(PipelineMetrics metrics) {
+    	this.metrics = metrics;
     }
     
     /**
      * Class to handle applying policies.
      *
      */
-    private class RWPolicyProcess {		
-    	private Exchanger<Queue<RWAssessment>> coaExchanger;
-    	private Exchanger<Queue<RWPlan>> planExchanger = new Exchanger<Queue<RWPlan>>();
+    class RWPolicyProcess {		
+    	private StageMetrics stageMetrics = metrics.stage("policy");
+    	private StageHandoff<Queue<RWAssessment>> coaHandoff;
+    	private StageHandoff<Queue<RWPlan>> planHandoff;
 		private Queue<RWPlan> plans = new LinkedList<>();
 		private Queue<RWAssessment> coas = new LinkedList<>();
     	
-    	public RWPolicyProcess(Exchanger<Queue<RWAssessment>> coaExchanger) {
+    	public RWPolicyProcess(StageHandoff<Queue<RWAssessment>> coaHandoff) {
 			super();
-			this.coaExchanger = coaExchanger;
+			this.coaHandoff = coaHandoff;
+			this.planHandoff = coaHandoff.getMode().newHandoff(LinkedList::new);
 		}
 		
 		private void processPolicies() {
 			Logger.log("Start policy process.");
 
-			RWResourceProcess resourceProcess = new RWResourceProcess(planExchanger);
+			RWResourceProcess resourceProcess = new RWResourceProcess(planHandoff);
 			resourceProcess.start();
 			
-			DualExchangeProcessor<Queue<RWAssessment>, Queue<RWPlan>> processor = new DualExchangeProcessor<>(coaExchanger, planExchanger, this::checkPolicies);
+			DualExchangeProcessor<Queue<RWAssessment>, Queue<RWPlan>> processor = new DualExchangeProcessor<>(coaHandoff, planHandoff, this::checkPolicies, stageMetrics);
 			processor.startExchange(coas, plans);
 			
 			Logger.log("PolicyProcess run loop has completed.");
 		}
 
 
-		private Queue<RWPlan> checkPolicies(Queue<RWAssessment> coas) {	
-			Logger.log("Checking " + coas.size() + " courses of action against policies.");
+		Queue<RWPlan> checkPolicies(Queue<RWAssessment> coas, Queue<RWPlan> plans) {	
+			Logger.debug(() -> "Checking " + coas.size() + " courses of action against policies.");
 			
 			while (!coas.isEmpty()) {
 				RWAssessment coa = coas.poll();
-				RWPlan plan = new RWPlan(coa.directives, coa.to);
+				RWPlan plan = new RWPlan(coa.directives, coa.to, coa.trace);
+				stageMetrics.recordHop(plan.trace);
 				plans.add(plan);
 			}
 			
@@ -103,14 +115,16 @@ public class RWPlanGenerator extends PlanGenerationService {
      * Class to allocate resources, create a plan of action, and send to plan execution.
      *
      */
-    private class RWResourceProcess extends Thread {
-    	private Exchanger<Queue<RWPlan>> planExchanger;
-    	private Exchanger<Queue<RWPlan>> actionPlanExchanger = new Exchanger<Queue<RWPlan>>();
+    class RWResourceProcess extends Thread {
+    	private StageMetrics stageMetrics = metrics.stage("resource");
+    	private StageHandoff<Queue<RWPlan>> planHandoff;
+    	private StageHandoff<Queue<RWPlan>> actionPlanHandoff;
     	private Queue<RWPlan> actionPlans = new LinkedList<>();
     	private Queue<RWPlan> plans = new LinkedList<>();
    	
-		public RWResourceProcess(Exchanger<Queue<RWPlan>> exchanger) {
-			this.planExchanger = exchanger;
+		public RWResourceProcess(StageHandoff<Queue<RWPlan>> handoff) {
+			this.planHandoff = handoff;
+			this.actionPlanHandoff = handoff.getMode().newHandoff(LinkedList::new);
 			
 			this.setName("Analysis Thread");
 			this.setPriority(Thread.MIN_PRIORITY);
@@ -124,21 +138,23 @@ public class RWPlanGenerator extends PlanGenerationService {
 		private void processResources() {
 			Logger.log("Start ResourceProcess.");
 			
-			planExecutor.setExchanger(actionPlanExchanger);
+			planExecutor.setHandoff(actionPlanHandoff);
+			planExecutor.setMetrics(metrics);
 			planExecutor.start();
 			
-			DualExchangeProcessor<Queue<RWPlan>, Queue<RWPlan>> processor = new DualExchangeProcessor<>(planExchanger, actionPlanExchanger, this::checkResources);
+			DualExchangeProcessor<Queue<RWPlan>, Queue<RWPlan>> processor = new DualExchangeProcessor<>(planHandoff, actionPlanHandoff, this::checkResources, stageMetrics);
 			processor.startExchange(plans, actionPlans);
 			
 			Logger.log("ResourceProcess run loop has completed.");			
 		}
 
-		private Queue<RWPlan> checkResources(Queue<RWPlan> plans) {
-			Logger.log("Checking resources for " + plans.size() + " plans.");
+		Queue<RWPlan> checkResources(Queue<RWPlan> plans, Queue<RWPlan> actionPlans) {
+			Logger.debug(() -> "Checking resources for " + plans.size() + " plans.");
 	        
 	        while (!plans.isEmpty()) {	
 	        	RWPlan plan = plans.poll();
 	        	
+	        	stageMetrics.recordHop(plan.trace);
 	        	actionPlans.add(plan);
 	        }
 	        
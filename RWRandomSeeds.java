@@ -0,0 +1,59 @@
+/**
+ * Title: RWRandomSeeds.java
+ * Function:
+ *  Derives independent random streams from one master seed.
+ * History:
+ *  Date         Author              Changes
+ *  10.17.2026   agent@local         initial
+**/
+
+package edu.uwm.cs790.assignment9;
+
+import java.util.SplittableRandom;
+
+/**
+ * Derives a separate random stream for every walker from one master seed.
+ *
+ * The seed of a stream depends only on the master seed and the stream index, using the SplitMix64 finalizer,
+ * so a walker's stream does not depend on how many other walkers were created or in what order.
+ * Each walker owns its stream, so drawing random numbers never contends across threads.
+ *
+ * @author agent
+ */
+public final class RWRandomSeeds {
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+	private RWRandomSeeds() {
+	}
+
+	/**
+	 * @return long master seed for a run that was not given one
+	 */
+	public static long newMasterSeed() {
+		return mix64(System.nanoTime() ^ Thread.currentThread().getId() * GOLDEN_GAMMA);
+	}
+
+	/**
+	 * @param masterSeed long seed of the whole run
+	 * @param index long index of the stream, such as a walker slot
+	 * @return long seed of the stream
+	 */
+	public static long streamSeed(long masterSeed, long index) {
+		return mix64(masterSeed + (index + 1) * GOLDEN_GAMMA);
+	}
+
+	/**
+	 * @param masterSeed long seed of the whole run
+	 * @param index long index of the stream, such as a walker slot
+	 * @return SplittableRandom for the stream, to be used by one thread at a time
+	 */
+	public static SplittableRandom newStream(long masterSeed, long index) {
+		return new SplittableRandom(streamSeed(masterSeed, index));
+	}
+
+	private static long mix64(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+}
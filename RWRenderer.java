@@ -0,0 +1,56 @@
+package edu.uwm.cs790.assignment9;
+
+/**
+ * Draws the walk for a {@link RandomWalkController}.
+ * 
+ * The walk is an n by n lattice centred on the origin, drawn as one cell per lattice point.
+ * Every frame the controller calls {@link #drawWalkers(RWWalkerStore)} and then {@link #show()},
+ * first calling {@link #drawHeatmap(RWHeatmap)} if the heatmap layer is turned on.
+ * Renderers are only called from the controller's drawing thread.
+ * 
+ * {@link StdDrawRenderer} draws into the StdDraw window, {@link OffscreenRenderer} draws into an image
+ * and writes frames to disk without a display, and {@link NullRenderer} draws nothing.
+ * 
+ * @author agent
+ */
+public interface RWRenderer {
+	
+	/**
+	 * Sets up an empty drawing surface.
+	 * 
+	 * @param n int the surface covers -n to n on both axes
+	 */
+	void init(int n);
+	
+	/**
+	 * Outlines a coverage area.
+	 * 
+	 * @param area RWBoundary to outline
+	 */
+	void drawArea(RWBoundary area);
+	
+	/**
+	 * Colours every visited cell by how often it was visited, under the area outlines and the walkers.
+	 * Once called, cells walkers leave take their heatmap colour instead of the visited colour.
+	 * 
+	 * @param heatmap RWHeatmap of visits
+	 */
+	void drawHeatmap(RWHeatmap heatmap);
+	
+	/**
+	 * Draws every walker that moved since it was last drawn and marks it drawn in the store.
+	 * 
+	 * @param store RWWalkerStore holding the walkers
+	 */
+	void drawWalkers(RWWalkerStore store);
+	
+	/**
+	 * Presents what has been drawn so far as a frame.
+	 */
+	void show();
+	
+	/**
+	 * Releases anything the renderer holds once the walk is over.
+	 */
+	void close();
+}
@@ -6,6 +6,7 @@
  *  Date         Author              Changes
  *  10.24.2021   lghoward@uwm.edu    initial
  *  11.03.2021   lghoward@uwm.edu    refactor to add pipeline and more threads
+ *  10.17.2026   agent@local         boundaries without a sender only add covered areas
 **/
 
 package edu.uwm.cs790.assignment9;
@@ -15,12 +16,10 @@ import edu.uwm.basecso.CSOPayload;
 import edu.uwm.basecso.SituationAssessmentService;
 import java.awt.Point;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.Queue;
 import java.util.Set;
-import java.util.concurrent.Exchanger;
 
 /**
  * Class that implements a SituationAssessmentService.
@@ -30,8 +29,9 @@ import java.util.concurrent.Exchanger;
  * 
  */
 public class RWSituationAssessor extends SituationAssessmentService {
-    private Exchanger<Queue<CSOMessage>> messageQueueExchanger;
+    private StageHandoff<Queue<CSOMessage>> messageQueueHandoff;
     private RWPlanGenerator planGenerator;
+    private PipelineMetrics metrics = new PipelineMetrics();
     
     /**
      * Constructor
@@ -45,12 +45,22 @@ public class RWSituationAssessor extends SituationAssessmentService {
 	}
     
     /**
-     * Must set up an Exchanger to pass in and receive message queues
+     * Must set up a StageHandoff to pass in and receive message queues.
+     * The rest of the pipeline uses the same HandoffMode as this handoff.
      * 
-     * @param exchanger An Exchanger of message queues across threads.
+     * @param handoff A StageHandoff of message queues across threads.
      */
-    public void setExchanger(Exchanger<Queue<CSOMessage>> exchanger) {
-    	this.messageQueueExchanger = exchanger;
+    public void setHandoff(StageHandoff<Queue<CSOMessage>> handoff) {
+    	this.messageQueueHandoff = handoff;
+    }
+    
+    /**
+     * Sets the PipelineMetrics the stages register their StageMetrics with.
+     * 
+     * @param metrics PipelineMetrics shared by the whole pipeline
+     */
+    public void setMetrics(PipelineMetrics metrics) {
+    	this.metrics = metrics;
     }
     
 	/**
@@ -65,7 +75,7 @@ public class RWSituationAssessor extends SituationAssessmentService {
     protected void doAssessments(Queue<CSOMessage> messages) {   	
     	Logger.log("In situation assessor.");
 		
-		RWFilterProcess filterProcess = new RWFilterProcess(messageQueueExchanger);
+		RWFilterProcess filterProcess = new RWFilterProcess(messageQueueHandoff);
 		filterProcess.processFilters();
 		
 		Logger.log("Assessor run loop has completed.");
@@ -76,16 +86,18 @@ public class RWSituationAssessor extends SituationAssessmentService {
      * Class to handle filtering messages (information).
      *
      */
-    private class RWFilterProcess {
+    class RWFilterProcess {
     	private Set<Class<?>> filterDatabase = new HashSet<>();
-    	private Exchanger<Queue<CSOMessage>> informationExchanger;
-    	private Exchanger<Queue<CSOMessage>> eventExchanger = new Exchanger<Queue<CSOMessage>>();
+    	private StageMetrics stageMetrics = metrics.stage("filter");
+    	private StageHandoff<Queue<CSOMessage>> informationHandoff;
+    	private StageHandoff<Queue<CSOMessage>> eventHandoff;
 		Queue<CSOMessage> information = new LinkedList<>();
 		Queue<CSOMessage> events = new LinkedList<>();
     	
-    	public RWFilterProcess(Exchanger<Queue<CSOMessage>> exchanger) {
+    	public RWFilterProcess(StageHandoff<Queue<CSOMessage>> handoff) {
     		super();
-    		this.informationExchanger = exchanger;
+    		this.informationHandoff = handoff;
+    		this.eventHandoff = handoff.getMode().newHandoff(LinkedList::new);
     		
     		// fill database with payload types of interest
     		filterDatabase.add(Point.class);
@@ -95,22 +107,23 @@ public class RWSituationAssessor extends SituationAssessmentService {
 		private void processFilters() {
 			Logger.log("Start filter process.");
 
-			RWTriageProcess triage = new RWTriageProcess(eventExchanger);
+			RWTriageProcess triage = new RWTriageProcess(eventHandoff);
 			triage.start();
 
-			DualExchangeProcessor<Queue<CSOMessage>, Queue<CSOMessage>> processor = new DualExchangeProcessor<>(informationExchanger, eventExchanger, this::doFiltering);			
+			DualExchangeProcessor<Queue<CSOMessage>, Queue<CSOMessage>> processor = new DualExchangeProcessor<>(informationHandoff, eventHandoff, this::doFiltering, stageMetrics);			
 			processor.startExchange(information, events);
 			
 			Logger.log("Filter run loop has completed.");
 		}
 		
-		private Queue<CSOMessage> doFiltering(Queue<CSOMessage> information) {
-			Logger.log("Filtering " + information.size() + " messages.");
+		Queue<CSOMessage> doFiltering(Queue<CSOMessage> information, Queue<CSOMessage> events) {
+			Logger.debug(() -> "Filtering " + information.size() + " messages.");
 			
 			while (!information.isEmpty()) {		
 				CSOMessage message = information.poll();
 				
 				if (filterMessages(message)) {
+					stageMetrics.recordHop(message.trace);
 					events.add(message);
 				}
 			}
@@ -130,16 +143,18 @@ public class RWSituationAssessor extends SituationAssessmentService {
      * Class to triage events.
      *
      */
-    private class RWTriageProcess extends Thread {
-		private Exchanger<Queue<CSOMessage>> eventExchanger;
-    	private Exchanger<Queue<CSOMessage>> situationExchanger = new Exchanger<Queue<CSOMessage>>();
+    class RWTriageProcess extends Thread {
+    	private StageMetrics stageMetrics = metrics.stage("triage");
+		private StageHandoff<Queue<CSOMessage>> eventHandoff;
+    	private StageHandoff<Queue<CSOMessage>> situationHandoff;
     	private Queue<CSOMessage> situations = new LinkedList<>();
 		private Queue<CSOMessage> events = new LinkedList<>();
     	
     	
-    	public RWTriageProcess(Exchanger<Queue<CSOMessage>> eventExchanger) {
+    	public RWTriageProcess(StageHandoff<Queue<CSOMessage>> eventHandoff) {
 			super();
-			this.eventExchanger = eventExchanger;
+			this.eventHandoff = eventHandoff;
+			this.situationHandoff = eventHandoff.getMode().newHandoff(LinkedList::new);
 			
 			this.setName("Triage Thread");
 			this.setPriority(Thread.MIN_PRIORITY);
@@ -153,20 +168,20 @@ public class RWSituationAssessor extends SituationAssessmentService {
 		private void processTriage() {
 			Logger.log("Start triage process.");
 
-			RWAnalysisProcess anaylizer = new RWAnalysisProcess(situationExchanger);
+			RWAnalysisProcess anaylizer = new RWAnalysisProcess(situationHandoff);
 			anaylizer.start();
 
-			DualExchangeProcessor<Queue<CSOMessage>, Queue<CSOMessage>> processor = new DualExchangeProcessor<>(eventExchanger, situationExchanger, this::triageEvents);
+			DualExchangeProcessor<Queue<CSOMessage>, Queue<CSOMessage>> processor = new DualExchangeProcessor<>(eventHandoff, situationHandoff, this::triageEvents, stageMetrics);
 			processor.startExchange(events, situations);
 			
 			Logger.log("Triage run loop has completed.");
 		}
 		
-		private Queue<CSOMessage> triageEvents(Queue<CSOMessage> events) {
+		Queue<CSOMessage> triageEvents(Queue<CSOMessage> events, Queue<CSOMessage> situations) {
 			ArrayList<CSOMessage> boundaries = new ArrayList<>();
 			ArrayList<CSOMessage> directions = new ArrayList<>();
 			
-			Logger.log("Triaging " + events.size() + " events.");
+			Logger.debug(() -> "Triaging " + events.size() + " events.");
 			
 			//reorder the messages to prefer handling boundaries first
 			// need to design a more general way
@@ -176,16 +191,18 @@ public class RWSituationAssessor extends SituationAssessmentService {
 				CSOPayload<?> payload = event.payload;
 				
 				if (payload.order instanceof RWBoundary) {
+					stageMetrics.recordHop(event.trace);
 					boundaries.add(event);
 		        } else if (payload.order instanceof Point) {
+		        	stageMetrics.recordHop(event.trace);
 		        	directions.add(event);
 		        }
 			}
 			
-			Logger.log("triage ordering boundary events first");
+			Logger.trace("triage ordering boundary events first");
 			situations.addAll(boundaries);
 			
-			Logger.log("triage ordering position events second");
+			Logger.trace("triage ordering position events second");
 			situations.addAll(directions);
 			
 			return situations;
@@ -197,15 +214,19 @@ public class RWSituationAssessor extends SituationAssessmentService {
      * Class to handle analysis and send to plan generation.
      *
      */
-    private class RWAnalysisProcess extends Thread {
-    	private Exchanger<Queue<CSOMessage>> situationExchanger;
-    	private HashMap<Long, RWBoundary> boundaryMap = new HashMap<>();
-    	private Exchanger<Queue<RWAssessment>> coaExchanger = new Exchanger<Queue<RWAssessment>>();
+    class RWAnalysisProcess extends Thread {
+    	private StageMetrics stageMetrics = metrics.stage("analysis");
+    	private StageHandoff<Queue<CSOMessage>> situationHandoff;
+    	private LongObjectHashMap<RWBoundary> boundaryMap = new LongObjectHashMap<>();
+    	private RWBoundaryGrid coverageGrid = new RWBoundaryGrid();
+    	private Set<RWBoundary> coveredAreas = new HashSet<>();
+    	private StageHandoff<Queue<RWAssessment>> coaHandoff;
     	private Queue<RWAssessment> coas = new LinkedList<RWAssessment>();
     	private Queue<CSOMessage> situations = new LinkedList<>();
     	
-		public RWAnalysisProcess(Exchanger<Queue<CSOMessage>> exchanger) {
-			this.situationExchanger = exchanger;
+		public RWAnalysisProcess(StageHandoff<Queue<CSOMessage>> handoff) {
+			this.situationHandoff = handoff;
+			this.coaHandoff = handoff.getMode().newHandoff(LinkedList::new);
 
 			this.setName("Analysis Thread");
 			this.setPriority(Thread.MIN_PRIORITY);
@@ -215,18 +236,19 @@ public class RWSituationAssessor extends SituationAssessmentService {
 		public void run() {
 			Logger.log("Start analysis process.");
 			
-			planGenerator.setExchanger(coaExchanger);
+			planGenerator.setHandoff(coaHandoff);
+			planGenerator.setMetrics(metrics);
 			planGenerator.start();
 			
-			DualExchangeProcessor<Queue<CSOMessage>, Queue<RWAssessment>> processor = new DualExchangeProcessor<>(situationExchanger, coaExchanger, this::analyze);
+			DualExchangeProcessor<Queue<CSOMessage>, Queue<RWAssessment>> processor = new DualExchangeProcessor<>(situationHandoff, coaHandoff, this::analyze, stageMetrics);
 			processor.startExchange(situations, coas);
 			
 			Logger.log("Analysis run loop has completed.");
 			
 		}
 
-		private Queue<RWAssessment> analyze(Queue<CSOMessage> situations) {
-			Logger.log("Analyizing " + situations.size() + " situations.");
+		Queue<RWAssessment> analyze(Queue<CSOMessage> situations, Queue<RWAssessment> coas) {
+			Logger.debug(() -> "Analyizing " + situations.size() + " situations.");
 	        
 	        while (!situations.isEmpty()) {
 	        	CSOMessage situation = situations.poll();
@@ -234,51 +256,52 @@ public class RWSituationAssessor extends SituationAssessmentService {
 		        RWAssessment assessment = null;
 		        
 		        if (payload.order instanceof RWBoundary) {
-		        	Logger.log("Got boundary.");
+		        	Logger.trace("Got boundary.");
 		            RWBoundary order = (RWBoundary) payload.order;
 		            
+		            if (coveredAreas.add(order)) {
+		            	coverageGrid.add(order);
+		            }
+		            
+		            // a boundary without a sender only adds a covered area, as when shards share their areas
+		            if (situation.fromCSO == null) {
+		            	continue;
+		            }
+		            
 		            long id = situation.fromCSO.getIdentifier();
-		            Logger.log("Adding boundary of " + order.bound + " for identifier: " + id);
+		            Logger.debug(() -> "Adding boundary of " + order.bound + " for identifier: " + id);
 		            boundaryMap.put(id, order);
 		            
-		            RWDirectives directive = new RWDirectives(true, true, true, true);
-		            assessment = new RWAssessment(directive, situation.fromCSO);
+		            RWDirectives directive = RWDirectives.ALL;
+		            assessment = new RWAssessment(directive, situation.fromCSO, situation.trace);
 	
 		        } else if (payload.order instanceof Point) {
-		        	Logger.log("Got new location. " + (Point) payload.order);
+		        	Logger.trace(() -> "Got new location. " + payload.order);
 		            Point p = (Point) payload.order;
 		            
 		            long id = situation.fromCSO.getIdentifier();
-		            Logger.log("Finding boundary for identifier: " + id);
-		            RWBoundary boundary = new RWBoundary(1); //just in case we can't find one.
-		            
-		            if (boundaryMap.containsKey(id)) {
-		            	Logger.log("Found boundary for identifier: " + id);
-		            	boundary = boundaryMap.get(id);
-		            }
-		            
-		            boolean allowNorth = true, allowSouth = true, allowEast = true, allowWest = true;
+		            Logger.trace(() -> "Finding boundary for identifier: " + id);
+		            RWBoundary boundary = boundaryMap.get(id);
 		            
-		            if (p.x < boundary.center.x && (p.x - 1) <= boundary.getLeftLimit()) {
-		                allowWest = false;
-		                Logger.log("Don't allow West. " + p.x);
-		            } else if (p.x > boundary.center.x && (p.x + 1) >= boundary.getRightLimit()) {
-		                allowEast = false;
-		                Logger.log("Don't allow East. " + p.x);
+		            if (boundary != null) {
+		            	Logger.trace(() -> "Found boundary for identifier: " + id);
+		            } else {
+		            	// fall back to any registered area the walker is standing in
+		            	boundary = coverageGrid.findContaining(p.x, p.y);
+		            	
+		            	if (boundary == null) {
+		            		boundary = RWBoundary.DEFAULT; //just in case we can't find one.
+		            	}
 		            }
 		            
-		            if (p.y < boundary.center.y && (p.y - 1) <= boundary.getBottomLimit()) {
-		                allowSouth = false;
-		                Logger.log("Don't allow South. " + p.y);
-		            } else if (p.y > boundary.center.y && (p.y + 1) >= boundary.getTopLimit()) {
-		                allowNorth = false;
-		                Logger.log("Don't allow North. " + p.y);
-		            }
+		            int mask = boundary.directiveMask(p.x, p.y);
+		            Logger.trace(() -> "Allowed direction mask " + mask + " at " + p.x + "," + p.y);
 		          
-		            RWDirectives directive = new RWDirectives(allowNorth, allowSouth, allowWest, allowEast);
-		            assessment = new RWAssessment(directive, situation.fromCSO);
+		            RWDirectives directive = RWDirectives.fromMask(mask);
+		            assessment = new RWAssessment(directive, situation.fromCSO, situation.trace);
 		        }
 		        
+		        stageMetrics.recordHop(situation.trace);
 		        coas.add(assessment);
 	       }
 	        
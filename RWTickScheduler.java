@@ -0,0 +1,277 @@
+/**
+ * Title: RWTickScheduler.java
+ * Function:
+ *  Advances every walker from a single tick loop.
+ * History:
+ *  Date         Author              Changes
+ *  10.17.2026   agent@local         initial
+**/
+
+package edu.uwm.cs790.assignment9;
+
+import edu.uwm.basecso.CSOMessage;
+import edu.uwm.basecso.Messageable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs a discrete simulation where one thread advances every walker once per tick.
+ *
+ * Each tick every walker takes one step and the position reports of all walkers are handed to the
+ * monitor together at the end of the tick. The tick period is configurable; a period of {@link #AS_FAST_AS_POSSIBLE}
+ * starts the next tick as soon as the previous one is done, which lets a headless run go much faster than real time.
+ * A tick that overruns its period is followed straight away by the next one, and the ticks after that
+ * are timed from then on rather than run back to back to catch up.
+ *
+ * A walker whose report the monitor turns away slows down the way RandomWalker.step() does:
+ * it sits out one tick, then two, four and so on up to {@link #MAX_BACKOFF_TICKS}, until a report is accepted again.
+ *
+ * After sending a tick's reports the scheduler waits until every walker whose report was accepted has applied
+ * the monitor's answer to it, so each step is taken on the directives for the walker's previous report.
+ * The directives a walker steps on then never depend on how fast the pipeline is, and a run with the same
+ * master seed and walkers takes the same steps every time, as long as the monitor accepts and answers every report.
+ * A tick gives up waiting after the answer timeout; the reports it stopped waiting for are counted as unanswered.
+ *
+ * The scheduler counts ticks, steps, refused and unanswered reports so the walker step rate of a run can be read back.
+ *
+ * @author agent
+ */
+public class RWTickScheduler implements Runnable {
+	public static final long AS_FAST_AS_POSSIBLE = 0;
+	public static final int MAX_BACKOFF_TICKS = 16;
+	public static final long DEFAULT_ANSWER_TIMEOUT_MILLIS = 1000;
+	private static final long ANSWER_POLL_NANOS = TimeUnit.MICROSECONDS.toNanos(20);
+
+	private final List<RandomWalker> walkers;
+	private final Messageable monitor;
+	private final long tickPeriodNanos;
+	private final ArrayList<CSOMessage> reports;
+	private final int[] reporters;
+	private final int[] backoffTicks;
+	private final int[] waitTicks;
+	private final long[] awaitedSequences;
+	private volatile long answerTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_ANSWER_TIMEOUT_MILLIS);
+	private volatile boolean isRunning = false;
+	private Thread tickThread;
+
+	private volatile long tickCount = 0;
+	private volatile long stepCount = 0;
+	private volatile long acceptedCount = 0;
+	private volatile long refusedCount = 0;
+	private volatile long overrunCount = 0;
+	private volatile long unansweredCount = 0;
+	private volatile long runNanos = 0;
+
+	/**
+	 * Constructor
+	 *
+	 * @param walkers List of RandomWalker to advance, in the order they step each tick
+	 * @param monitor Messageable that receives the batched position reports
+	 * @param tickPeriod long time between the start of two ticks, or AS_FAST_AS_POSSIBLE
+	 * @param unit TimeUnit of the tick period
+	 */
+	public RWTickScheduler(List<RandomWalker> walkers, Messageable monitor, long tickPeriod, TimeUnit unit) {
+		this.walkers = walkers;
+		this.monitor = monitor;
+		this.tickPeriodNanos = unit.toNanos(tickPeriod);
+		this.reports = new ArrayList<>(walkers.size());
+		this.reporters = new int[walkers.size()];
+		this.backoffTicks = new int[walkers.size()];
+		this.waitTicks = new int[walkers.size()];
+		this.awaitedSequences = new long[walkers.size()];
+	}
+
+	/**
+	 * Sets how long a tick waits for the monitor to answer the reports it accepted.
+	 *
+	 * @param timeout long longest wait per tick, 0 to not wait, which gives up reproducible runs
+	 * @param unit TimeUnit of the timeout
+	 */
+	public void setAnswerTimeout(long timeout, TimeUnit unit) {
+		this.answerTimeoutNanos = unit.toNanos(timeout);
+	}
+
+	/**
+	 * Starts the tick loop on its own thread.
+	 */
+	public void start() {
+		isRunning = true;
+
+		tickThread = new Thread(this, "Tick Thread");
+		tickThread.start();
+	}
+
+	/**
+	 * Stops the tick loop after the current tick.
+	 */
+	public void stop() {
+		isRunning = false;
+
+		if (tickThread != null) {
+			tickThread.interrupt();
+		}
+	}
+
+	@Override
+	public void run() {
+		long start = System.nanoTime();
+		long nextTick = start;
+
+		while (isRunning) {
+			tick();
+			runNanos = System.nanoTime() - start;
+
+			if (tickPeriodNanos > AS_FAST_AS_POSSIBLE) {
+				nextTick += tickPeriodNanos;
+
+				// after an overrun start timing again from now instead of running the missed ticks back to back
+				if (nextTick - System.nanoTime() < 0) {
+					nextTick = System.nanoTime();
+					overrunCount++;
+				}
+
+				long wait;
+				while (isRunning && (wait = nextTick - System.nanoTime()) > 0) {
+					LockSupport.parkNanos(wait);
+				}
+			}
+		}
+
+		Logger.log("Tick loop has completed after " + tickCount + " ticks and " + stepCount + " steps.");
+	}
+
+	/**
+	 * Runs a fixed number of ticks on the calling thread as fast as possible.
+	 *
+	 * @param ticks long number of ticks to run
+	 */
+	public void runTicks(long ticks) {
+		long start = System.nanoTime();
+
+		for (long i = 0; i < ticks; i++) {
+			tick();
+		}
+
+		runNanos += System.nanoTime() - start;
+	}
+
+	/**
+	 * Advances every walker that is not backing off by one step, sends their reports to the monitor
+	 * and waits for the monitor to answer them.
+	 */
+	public void tick() {
+		for (int i = 0; i < walkers.size(); i++) {
+			awaitedSequences[i] = 0;
+
+			if (waitTicks[i] > 0) {
+				waitTicks[i]--;
+				continue;
+			}
+
+			RandomWalker rw = walkers.get(i);
+
+			rw.advance();
+			reporters[reports.size()] = i;
+			reports.add(rw.createPositionMessage());
+		}
+
+		// sent one at a time so a refused report can be traced back to its walker
+		long accepted = 0;
+		for (int i = 0; i < reports.size(); i++) {
+			int walker = reporters[i];
+
+			CSOMessage report = reports.get(i);
+
+			if (monitor.receiveMessage(report)) {
+				accepted++;
+				backoffTicks[walker] = 0;
+				awaitedSequences[walker] = report.trace.sequence;
+			} else {
+				backoffTicks[walker] = Math.min(Math.max(backoffTicks[walker] * 2, 1), MAX_BACKOFF_TICKS);
+				waitTicks[walker] = backoffTicks[walker];
+			}
+		}
+
+		acceptedCount += accepted;
+		refusedCount += reports.size() - accepted;
+		stepCount += reports.size();
+		tickCount++;
+
+		reports.clear();
+		awaitAnswers();
+	}
+
+	// a walker has its answer once it has applied the directives, or the acknowledgement, for its report
+	private void awaitAnswers() {
+		long timeout = answerTimeoutNanos;
+
+		if (timeout == 0) {
+			return;
+		}
+
+		long deadline = System.nanoTime() + timeout;
+		boolean waiting = true;
+
+		for (int i = 0; i < walkers.size(); i++) {
+			long sequence = awaitedSequences[i];
+			RandomWalker rw = walkers.get(i);
+
+			while (sequence != 0 && rw.getAppliedSequence() < sequence) {
+				if (!waiting || System.nanoTime() - deadline >= 0 || Thread.currentThread().isInterrupted()) {
+					waiting = false;
+					unansweredCount++;
+					break;
+				}
+
+				LockSupport.parkNanos(ANSWER_POLL_NANOS);
+			}
+		}
+	}
+
+	public long getTickCount() {
+		return tickCount;
+	}
+
+	public long getStepCount() {
+		return stepCount;
+	}
+
+	/**
+	 * @return long number of position reports the monitor accepted
+	 */
+	public long getAcceptedCount() {
+		return acceptedCount;
+	}
+
+	/**
+	 * @return long number of position reports the monitor turned away, each of which made its walker back off
+	 */
+	public long getRefusedCount() {
+		return refusedCount;
+	}
+
+	/**
+	 * @return long number of accepted reports a tick stopped waiting for an answer to
+	 */
+	public long getUnansweredCount() {
+		return unansweredCount;
+	}
+
+	/**
+	 * @return long number of ticks that took longer than the tick period
+	 */
+	public long getOverrunCount() {
+		return overrunCount;
+	}
+
+	/**
+	 * @return double walker steps per second of run time so far
+	 */
+	public double getStepsPerSecond() {
+		long nanos = runNanos;
+
+		return nanos == 0 ? 0 : stepCount * (double) TimeUnit.SECONDS.toNanos(1) / nanos;
+	}
+}
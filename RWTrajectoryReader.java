@@ -0,0 +1,150 @@
+/**
+ * Title: RWTrajectoryReader.java
+ * Function:
+ *  Reads the steps written by an RWTrajectoryRecorder.
+ * History:
+ *  Date         Author              Changes
+ *  10.17.2026   agent@local         initial
+**/
+
+package edu.uwm.cs790.assignment9;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+/**
+ * Scans the segment files of a recording in order, one memory-mapped segment at a time,
+ * and steps through the complete records like a cursor: next() moves to the next record
+ * and the getters read its fields, so reading allocates nothing per record.
+ *
+ * Records that were claimed but never finished, such as those at the end of the last segment,
+ * are skipped. Only one thread may use a reader.
+ *
+ * @author agent
+ */
+public class RWTrajectoryReader implements AutoCloseable {
+	private final Path[] segments;
+	private int segmentIndex = -1;
+	private MappedByteBuffer buffer;
+	private int recordsInSegment;
+	private int record;
+	private int offset;
+
+	/**
+	 * Constructor
+	 *
+	 * @param directory Path of the directory an RWTrajectoryRecorder wrote to
+	 * @throws IOException if the directory cannot be listed
+	 */
+	public RWTrajectoryReader(Path directory) throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			segments = files.filter(file -> file.getFileName().toString().matches("trajectory-\\d+\\.seg"))
+					.sorted().toArray(Path[]::new);
+		}
+	}
+
+	/**
+	 * Moves to the next complete record.
+	 *
+	 * @return boolean false once every record has been read
+	 * @throws IOException if a segment cannot be read or is not a trajectory segment
+	 */
+	public boolean next() throws IOException {
+		while (true) {
+			while (buffer != null && ++record < recordsInSegment) {
+				offset = RWTrajectoryRecorder.HEADER_BYTES + record * RWTrajectoryRecorder.RECORD_BYTES;
+
+				if ((buffer.getInt(offset + RWTrajectoryRecorder.STATE) & RWTrajectoryRecorder.COMPLETE) != 0) {
+					return true;
+				}
+			}
+
+			if (segmentIndex + 1 >= segments.length) {
+				buffer = null;
+				return false;
+			}
+
+			open(++segmentIndex);
+		}
+	}
+
+	/**
+	 * Goes back to before the first record.
+	 */
+	public void rewind() {
+		segmentIndex = -1;
+		buffer = null;
+	}
+
+	public long getWalkerId() {
+		return buffer.getLong(offset + RWTrajectoryRecorder.WALKER_ID);
+	}
+
+	public long getSequence() {
+		return buffer.getLong(offset + RWTrajectoryRecorder.SEQUENCE);
+	}
+
+	/**
+	 * @return long nanoseconds since the epoch when the step was taken
+	 */
+	public long getEpochNanos() {
+		return buffer.getLong(offset + RWTrajectoryRecorder.EPOCH_NANOS);
+	}
+
+	public int getX() {
+		return buffer.getInt(offset + RWTrajectoryRecorder.X);
+	}
+
+	public int getY() {
+		return buffer.getInt(offset + RWTrajectoryRecorder.Y);
+	}
+
+	/**
+	 * @return int RWDirectives mask the step was taken under
+	 */
+	public int getDirectiveMask() {
+		return buffer.getInt(offset + RWTrajectoryRecorder.STATE) & 0xff;
+	}
+
+	/**
+	 * @return int number of segment files in the recording
+	 */
+	public int getSegmentCount() {
+		return segments.length;
+	}
+
+	@Override
+	public void close() {
+		buffer = null;
+		segmentIndex = segments.length;
+	}
+
+	private void open(int index) throws IOException {
+		Path file = segments[index];
+
+		// the mapping stays valid once the channel is closed
+		try (FileChannel channel = FileChannel.open(file)) {
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+		if (buffer.capacity() < RWTrajectoryRecorder.HEADER_BYTES
+				|| buffer.getInt(0) != RWTrajectoryRecorder.MAGIC
+				|| buffer.getInt(4) != RWTrajectoryRecorder.VERSION
+				|| buffer.getInt(8) != RWTrajectoryRecorder.RECORD_BYTES) {
+			buffer = null;
+			throw new IOException("Not a trajectory segment: " + file);
+		}
+
+		// a segment cut short, say by a full disk, holds only the records that fit
+		int fit = (buffer.capacity() - RWTrajectoryRecorder.HEADER_BYTES) / RWTrajectoryRecorder.RECORD_BYTES;
+		recordsInSegment = Math.min(buffer.getInt(12), fit);
+		record = -1;
+	}
+}
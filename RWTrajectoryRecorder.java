@@ -0,0 +1,296 @@
+/**
+ * Title: RWTrajectoryRecorder.java
+ * Function:
+ *  Records every walker step to memory-mapped segment files.
+ * History:
+ *  Date         Author              Changes
+ *  10.17.2026   agent@local         initial
+**/
+
+package edu.uwm.cs790.assignment9;
+
+import edu.uwm.basecso.CSOClock;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Appends one fixed size record per walker step to a directory of memory-mapped segment files,
+ * so the paths of a run can be kept and replayed after it ends.
+ *
+ * A record holds the walker id, the walker's step sequence, the epoch time of the step in nanoseconds,
+ * the new x and y, and the directive mask the step was taken under. Walkers on any thread claim the
+ * next record with one atomic increment and write it straight into the mapped file, so a step costs
+ * no system call and no allocation; a new segment is mapped only when the current one fills up.
+ * Records are numbered in the order they were claimed, which keeps each walker's steps in order
+ * but may interleave walkers slightly out of time order.
+ *
+ * A record's last field is written last, with release ordering, and marks the record complete.
+ * Pages written before a JVM crash stay in the operating system and reach the file anyway; after an
+ * operating system crash, everything up to the last flush is kept. Records claimed but not finished
+ * when a run stopped are left zeroed and are skipped when reading.
+ *
+ * Segments are only forced to disk by flush(), from the flush thread or close(), never while a walker waits.
+ * Every mapped segment is kept until a flush has forced it and at least two newer segments exist;
+ * a writer held up even longer than that maps its segment again, and that mapping is kept and flushed too.
+ *
+ * Segment files are named trajectory-NNNNNN.seg. Each starts with a HEADER_BYTES header holding
+ * MAGIC, VERSION, RECORD_BYTES, the records per segment and the segment number, followed by the
+ * records, all in little-endian order.
+ *
+ * @author agent
+ */
+public class RWTrajectoryRecorder implements AutoCloseable {
+	public static final int MAGIC = 0x52575452; // "RWTR"
+	public static final int VERSION = 1;
+	public static final int HEADER_BYTES = 64;
+	public static final int RECORD_BYTES = 40;
+	public static final int DEFAULT_RECORDS_PER_SEGMENT = 1 << 20;
+
+	// offsets of the fields within a record
+	static final int WALKER_ID = 0;
+	static final int SEQUENCE = 8;
+	static final int EPOCH_NANOS = 16;
+	static final int X = 24;
+	static final int Y = 28;
+	static final int STATE = 32;
+
+	// set in STATE on top of the directive mask once the rest of the record is written
+	static final int COMPLETE = 0x100;
+
+	private static final VarHandle STATE_FIELD = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+	private final Path directory;
+	private final int recordsPerSegment;
+	private final AtomicLong nextRecord = new AtomicLong();
+	private volatile Segment current;
+	private final LongObjectHashMap<Segment> segments = new LongObjectHashMap<>();
+	private volatile boolean closed = false;
+	private final Thread flusher;
+
+	/**
+	 * Constructor that flushes to disk every second.
+	 *
+	 * @param directory Path of the directory the segments are written to, created if needed
+	 * @throws IOException if the directory or the first segment cannot be created
+	 */
+	public RWTrajectoryRecorder(Path directory) throws IOException {
+		this(directory, DEFAULT_RECORDS_PER_SEGMENT, 1, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param directory Path of the directory the segments are written to, created if needed
+	 * @param recordsPerSegment int number of records in each segment file
+	 * @param flushPeriod long time between flushes to disk, 0 to flush only when closed
+	 * @param unit TimeUnit of the flush period
+	 * @throws IOException if the directory or the first segment cannot be created
+	 */
+	public RWTrajectoryRecorder(Path directory, int recordsPerSegment, long flushPeriod, TimeUnit unit) throws IOException {
+		if (recordsPerSegment < 1 || (long) recordsPerSegment * RECORD_BYTES > Integer.MAX_VALUE - HEADER_BYTES) {
+			throw new IllegalArgumentException("recordsPerSegment out of range: " + recordsPerSegment);
+		}
+
+		this.directory = directory;
+		this.recordsPerSegment = recordsPerSegment;
+
+		Files.createDirectories(directory);
+		current = map(0);
+		segments.put(0, current);
+
+		if (flushPeriod > 0) {
+			long flushMillis = Math.max(1, unit.toMillis(flushPeriod));
+			flusher = new Thread(() -> flushLoop(flushMillis), "Trajectory Flush Thread");
+			flusher.setDaemon(true);
+			flusher.start();
+		} else {
+			flusher = null;
+		}
+	}
+
+	/**
+	 * Records one step. Safe to call from any number of threads at once.
+	 *
+	 * @param walkerId long identifier of the walker
+	 * @param sequence long number of the step among the walker's steps
+	 * @param x int x after the step
+	 * @param y int y after the step
+	 * @param directiveMask int RWDirectives mask the step was taken under
+	 * @param nanos long CSOClock time of the step
+	 * @return boolean false if the recorder is closed, or a segment could not be mapped, and the step was not recorded
+	 */
+	public boolean record(long walkerId, long sequence, int x, int y, int directiveMask, long nanos) {
+		if (closed) {
+			return false;
+		}
+
+		long index = nextRecord.getAndIncrement();
+		long number = index / recordsPerSegment;
+		Segment segment = current;
+
+		if (segment.number != number && (segment = segmentFor(number)) == null) {
+			return false;
+		}
+
+		MappedByteBuffer buffer = segment.buffer;
+		int offset = HEADER_BYTES + (int) (index - number * recordsPerSegment) * RECORD_BYTES;
+
+		buffer.putLong(offset + WALKER_ID, walkerId);
+		buffer.putLong(offset + SEQUENCE, sequence);
+		buffer.putLong(offset + EPOCH_NANOS, CSOClock.toEpochNanos(nanos));
+		buffer.putInt(offset + X, x);
+		buffer.putInt(offset + Y, y);
+		STATE_FIELD.setRelease(buffer, offset + STATE, (directiveMask & 0xff) | COMPLETE);
+
+		return true;
+	}
+
+	/**
+	 * @return long number of records claimed so far
+	 */
+	public long getRecordCount() {
+		return nextRecord.get();
+	}
+
+	public Path getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * Writes the records so far to disk. The segments are forced without holding the lock
+	 * walkers take to move to a new segment.
+	 */
+	public void flush() {
+		List<Segment> mapped = new ArrayList<>();
+		long keepFrom;
+
+		synchronized (this) {
+			segments.forEachValue(mapped::add);
+			keepFrom = current.number - 1;
+		}
+
+		for (Segment segment : mapped) {
+			segment.buffer.force();
+		}
+
+		// segments two behind the current one have been forced after their writers moved on
+		synchronized (this) {
+			for (Segment segment : mapped) {
+				if (segment.number < keepFrom && segments.get(segment.number) == segment) {
+					segments.remove(segment.number);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Stops recording and writes everything recorded to disk.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+
+		if (flusher != null) {
+			flusher.interrupt();
+		}
+
+		flush();
+	}
+
+	/**
+	 * @param directory Path of a recording
+	 * @param number long segment number
+	 * @return Path of the segment file
+	 */
+	public static Path segmentPath(Path directory, long number) {
+		return directory.resolve(String.format("trajectory-%06d.seg", number));
+	}
+
+	// a writer's record is in a segment other than the current one, either a later one or,
+	// for a writer that was held up while others moved on, an earlier one.
+	// Every segment up to a later one is mapped and made current in turn, so the writers
+	// of a segment that was skipped over share one mapping of it.
+	// If a segment cannot be mapped, recording stops rather than failing the walkers.
+	private synchronized Segment segmentFor(long number) {
+		Segment segment = segments.get(number);
+
+		if (segment != null) {
+			return segment;
+		}
+
+		try {
+			if (number < current.number) {
+				segment = map(number);
+				segments.put(number, segment);
+				return segment;
+			}
+
+			for (long next = current.number + 1; next <= number; next++) {
+				segment = map(next);
+				segments.put(next, segment);
+				current = segment;
+			}
+
+			return segment;
+		} catch (IOException e) {
+			if (!closed) {
+				closed = true;
+				Logger.warn("Could not map trajectory segment " + number + ", recording stopped: " + e.getMessage());
+			}
+
+			return null;
+		}
+	}
+
+	private Segment map(long number) throws IOException {
+		long size = HEADER_BYTES + (long) recordsPerSegment * RECORD_BYTES;
+
+		// the mapping stays valid once the channel is closed
+		try (FileChannel channel = FileChannel.open(segmentPath(directory, number),
+				StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+			buffer.putInt(0, MAGIC);
+			buffer.putInt(4, VERSION);
+			buffer.putInt(8, RECORD_BYTES);
+			buffer.putInt(12, recordsPerSegment);
+			buffer.putLong(16, number);
+
+			return new Segment(number, buffer);
+		}
+	}
+
+	private void flushLoop(long flushMillis) {
+		while (!closed) {
+			try {
+				Thread.sleep(flushMillis);
+			} catch (InterruptedException e) {
+				break;
+			}
+
+			flush();
+		}
+	}
+
+	private static final class Segment {
+		final long number;
+		final MappedByteBuffer buffer;
+
+		Segment(long number, MappedByteBuffer buffer) {
+			this.number = number;
+			this.buffer = buffer;
+		}
+	}
+}
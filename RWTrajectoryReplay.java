@@ -0,0 +1,306 @@
+/**
+ * Title: RWTrajectoryReplay.java
+ * Function:
+ *  Plays back recorded walker steps to the renderer and the monitor.
+ * History:
+ *  Date         Author              Changes
+ *  10.17.2026   agent@local         initial
+**/
+
+package edu.uwm.cs790.assignment9;
+
+import edu.uwm.basecso.CSO;
+import edu.uwm.basecso.CSOClock;
+import edu.uwm.basecso.CSOMessage;
+import edu.uwm.basecso.CSOPayload;
+import edu.uwm.basecso.Messageable;
+import edu.uwm.basecso.TraceContext;
+import java.awt.Point;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Streams the steps of a recording made by an {@link RWTrajectoryRecorder} back into a walk,
+ * in place of live RandomWalkers, so a run can be reproduced step for step or the monitor
+ * can be driven with real traffic from one thread.
+ *
+ * Each step moves the walker's slot in an RWWalkerStore, for the renderer to draw, counts it
+ * in an RWHeatmap, and reports it to a CSO monitor, whichever of those are set. Reports go to
+ * the monitor in batches, from a stand-in Messageable per recorded walker that counts the
+ * directives sent back but does not act on them, since the recording already says where the walker went.
+ *
+ * Steps are played at the pace they were recorded, divided by the speed: REAL_TIME plays them
+ * as they happened, 10 plays them ten times as fast, and MAX_SPEED plays them as fast as the
+ * targets take them. Report timestamps are the time of playback, not of recording.
+ *
+ * The recording is scanned once when the replay is created to find every walker and where it
+ * first stood, so they can all be added before playback starts.
+ *
+ * @author agent
+ */
+public class RWTrajectoryReplay implements Runnable {
+	public static final double REAL_TIME = 1.0;
+	public static final double MAX_SPEED = Double.POSITIVE_INFINITY;
+	public static final int MAX_BATCH = 1024;
+
+	private final RWTrajectoryReader reader;
+	private final List<ReplayWalker> walkers = new ArrayList<>();
+	private final LongObjectHashMap<ReplayWalker> walkersById = new LongObjectHashMap<>();
+	private final List<CSOMessage> reports = new ArrayList<>();
+	private final LongAdder directiveCount = new LongAdder();
+	private double speed = REAL_TIME;
+	private RWWalkerStore store;
+	private RWHeatmap heatmap;
+	private CSO monitor;
+	private volatile boolean isRunning = false;
+	private volatile boolean isFinished = false;
+	private long stepCount = 0;
+	private long acceptedCount = 0;
+	private long runNanos = 0;
+
+	/**
+	 * Constructor
+	 *
+	 * @param directory Path of the directory an RWTrajectoryRecorder wrote to
+	 * @throws IOException if the recording cannot be read
+	 */
+	public RWTrajectoryReplay(Path directory) throws IOException {
+		reader = new RWTrajectoryReader(directory);
+
+		while (reader.next()) {
+			long id = reader.getWalkerId();
+
+			if (!walkersById.containsKey(id)) {
+				ReplayWalker walker = new ReplayWalker(id, reader.getX(), reader.getY());
+				walkers.add(walker);
+				walkersById.put(id, walker);
+			}
+		}
+
+		reader.rewind();
+	}
+
+	/**
+	 * Sets how fast to play the recording. Must be called before the replay runs.
+	 *
+	 * @param speed double multiple of the recorded pace, REAL_TIME, or MAX_SPEED
+	 */
+	public void setSpeed(double speed) {
+		if (!(speed > 0)) {
+			throw new IllegalArgumentException("speed must be positive: " + speed);
+		}
+
+		this.speed = speed;
+	}
+
+	public double getSpeed() {
+		return speed;
+	}
+
+	/**
+	 * Adds every recorded walker to a store at the point it first stood, and moves it there on each step.
+	 * Must be called before the replay runs.
+	 *
+	 * @param store RWWalkerStore the renderer draws from
+	 */
+	public void setWalkerStore(RWWalkerStore store) {
+		this.store = store;
+
+		for (ReplayWalker walker : walkers) {
+			walker.slot = store.add(walker.id, walker.start.x, walker.start.y);
+		}
+	}
+
+	/**
+	 * Counts every step in a heatmap. Must be called before the replay runs.
+	 *
+	 * @param heatmap RWHeatmap to count steps in
+	 */
+	public void setHeatmap(RWHeatmap heatmap) {
+		this.heatmap = heatmap;
+	}
+
+	/**
+	 * Reports every step to a monitor. Must be called before the replay runs.
+	 *
+	 * @param monitor CSO to report positions to
+	 */
+	public void setMonitor(CSO monitor) {
+		this.monitor = monitor;
+	}
+
+	/**
+	 * @return int number of walkers in the recording
+	 */
+	public int getWalkerCount() {
+		return walkers.size();
+	}
+
+	/**
+	 * @param index int from 0 to getWalkerCount() - 1, in the order the walkers first appear
+	 * @return Messageable standing in for the walker when messaging the monitor
+	 */
+	public Messageable getWalker(int index) {
+		return walkers.get(index);
+	}
+
+	/**
+	 * @param index int from 0 to getWalkerCount() - 1, in the order the walkers first appear
+	 * @return Point where the walker first stood in the recording
+	 */
+	public Point getStart(int index) {
+		return new Point(walkers.get(index).start);
+	}
+
+	@Override
+	public void run() {
+		isRunning = true;
+		long start = CSOClock.nanoTime();
+		long firstEpochNanos = 0;
+		boolean first = true;
+
+		try {
+			while (isRunning && reader.next()) {
+				if (speed != MAX_SPEED) {
+					long epochNanos = reader.getEpochNanos();
+
+					if (first) {
+						firstEpochNanos = epochNanos;
+						first = false;
+					}
+
+					long due = start + (long) ((epochNanos - firstEpochNanos) / speed);
+
+					if (due - CSOClock.nanoTime() > 0) {
+						report(); //send what is due before waiting
+						waitUntil(due);
+					}
+				}
+
+				play();
+
+				if (reports.size() >= MAX_BATCH) {
+					report();
+				}
+			}
+
+			report();
+		} catch (IOException e) {
+			Logger.warn("Replay stopped: " + e.getMessage());
+		} finally {
+			runNanos = CSOClock.nanoTime() - start;
+			isRunning = false;
+			isFinished = true;
+		}
+
+		Logger.log("Replay has completed after " + stepCount + " steps at " + Math.round(getStepsPerSecond()) + " steps per second.");
+	}
+
+	/**
+	 * Stops the replay after the step it is playing.
+	 */
+	public void stop() {
+		isRunning = false;
+	}
+
+	/**
+	 * @return boolean whether the replay has played every step or was stopped
+	 */
+	public boolean isFinished() {
+		return isFinished;
+	}
+
+	public long getStepCount() {
+		return stepCount;
+	}
+
+	/**
+	 * @return long number of position reports the monitor accepted
+	 */
+	public long getAcceptedCount() {
+		return acceptedCount;
+	}
+
+	/**
+	 * @return long number of directive messages the monitor sent back to the replayed walkers
+	 */
+	public long getDirectiveCount() {
+		return directiveCount.sum();
+	}
+
+	/**
+	 * @return double steps played per second, once the replay has finished
+	 */
+	public double getStepsPerSecond() {
+		long nanos = runNanos;
+
+		return nanos == 0 ? 0 : stepCount * (double) TimeUnit.SECONDS.toNanos(1) / nanos;
+	}
+
+	private void play() {
+		ReplayWalker walker = walkersById.get(reader.getWalkerId());
+		int x = reader.getX();
+		int y = reader.getY();
+
+		if (store != null) {
+			store.setPosition(walker.slot, x, y);
+			store.setDirectiveMask(walker.slot, reader.getDirectiveMask());
+		}
+
+		if (heatmap != null) {
+			heatmap.visit(x, y);
+		}
+
+		if (monitor != null) {
+			long now = CSOClock.nanoTime();
+			CSOPayload<Point> payload = new CSOPayload<Point>(new Point(x, y), 0, now, now);
+			reports.add(new CSOMessage(walker, monitor, null, payload, now, new TraceContext(walker.id, ++walker.sentSequence, now)));
+		}
+
+		stepCount++;
+	}
+
+	private void report() {
+		if (!reports.isEmpty()) {
+			acceptedCount += monitor.receiveMessages(reports);
+			reports.clear();
+		}
+	}
+
+	private void waitUntil(long due) {
+		long wait;
+
+		while (isRunning && (wait = due - CSOClock.nanoTime()) > 0) {
+			LockSupport.parkNanos(wait);
+		}
+	}
+
+	// stands in for a recorded walker when messaging the monitor
+	private final class ReplayWalker implements Messageable {
+		final long id;
+		final Point start;
+		int slot;
+		long sentSequence = 0;
+
+		ReplayWalker(long id, int x, int y) {
+			this.id = id;
+			this.start = new Point(x, y);
+		}
+
+		@Override
+		public long getIdentifier() {
+			return id;
+		}
+
+		@Override
+		public boolean receiveMessage(CSOMessage message) {
+			directiveCount.increment();
+			return true;
+		}
+	}
+}
@@ -0,0 +1,197 @@
+/**
+ * Title: RWWalkerStore.java
+ * Function:
+ *  Columnar storage for the state of many walkers.
+ * History:
+ *  Date         Author              Changes
+ *  10.17.2026   agent@local         initial
+**/
+
+package edu.uwm.cs790.assignment9;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+/**
+ * Holds the position and directives of every walker in primitive columns indexed by walker slot,
+ * so stepping, drawing and analysis can scan all walkers linearly without touching a Point per walker.
+ *
+ * Each slot has a current position, the position last drawn, and a directive mask built from the
+ * RWDirectives direction bits.
+ *
+ * Slots are added while the walkers are being set up. The current position is packed into a single long,
+ * see pack(), so it is written by the walker that owns the slot and read by other threads such as the renderer
+ * in one release/acquire access: a reader may see a position that is one step old, but never the x of one
+ * step with the y of another. Directive masks are written by the plan executor and read by the walker,
+ * so they are published the same way. The previous positions belong to the renderer alone.
+ *
+ * @author agent
+ */
+public class RWWalkerStore {
+	private static final int DEFAULT_CAPACITY = 16;
+	private static final VarHandle POSITIONS = MethodHandles.arrayElementVarHandle(long[].class);
+	private static final VarHandle DIRECTIVES = MethodHandles.arrayElementVarHandle(byte[].class);
+
+	private long[] ids;
+	private long[] positions;
+	private int[] prevX;
+	private int[] prevY;
+	private byte[] directives;
+	private volatile int size = 0;
+
+	/**
+	 * Constructor
+	 */
+	public RWWalkerStore() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param capacity int number of walkers expected, the store grows past it if needed
+	 */
+	public RWWalkerStore(int capacity) {
+		capacity = Math.max(capacity, 1);
+
+		ids = new long[capacity];
+		positions = new long[capacity];
+		prevX = new int[capacity];
+		prevY = new int[capacity];
+		directives = new byte[capacity];
+	}
+
+	/**
+	 * Adds a walker that starts at the given position with every direction allowed.
+	 * Must not be called once walkers have started stepping.
+	 *
+	 * @param id long identifier of the walker
+	 * @param startX int starting x
+	 * @param startY int starting y
+	 * @return int slot of the walker
+	 */
+	public synchronized int add(long id, int startX, int startY) {
+		int slot = size;
+
+		if (slot == positions.length) {
+			grow();
+		}
+
+		ids[slot] = id;
+		positions[slot] = pack(startX, startY);
+		prevX[slot] = startX;
+		prevY[slot] = startY;
+		directives[slot] = (byte) RWDirectives.ALL_DIRECTIONS;
+
+		size = slot + 1;
+
+		return slot;
+	}
+
+	private void grow() {
+		int capacity = positions.length * 2;
+
+		ids = Arrays.copyOf(ids, capacity);
+		positions = Arrays.copyOf(positions, capacity);
+		prevX = Arrays.copyOf(prevX, capacity);
+		prevY = Arrays.copyOf(prevY, capacity);
+		directives = Arrays.copyOf(directives, capacity);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public long getId(int slot) {
+		return ids[slot];
+	}
+
+	/**
+	 * Packs a position into one long, x in the high half and y in the low half.
+	 *
+	 * @param x int x
+	 * @param y int y
+	 * @return long packed position
+	 */
+	public static long pack(int x, int y) {
+		return ((long) x << 32) | (y & 0xFFFFFFFFL);
+	}
+
+	public static int xOf(long position) {
+		return (int) (position >> 32);
+	}
+
+	public static int yOf(long position) {
+		return (int) position;
+	}
+
+	/**
+	 * Reads both coordinates of a walker's current position at once.
+	 *
+	 * @param slot int slot of the walker
+	 * @return long position packed by pack()
+	 */
+	public long getPosition(int slot) {
+		return (long) POSITIONS.getAcquire(positions, slot);
+	}
+
+	/**
+	 * Reads only x. Use getPosition() when both coordinates are needed from another thread.
+	 */
+	public int getX(int slot) {
+		return xOf(getPosition(slot));
+	}
+
+	/**
+	 * Reads only y. Use getPosition() when both coordinates are needed from another thread.
+	 */
+	public int getY(int slot) {
+		return yOf(getPosition(slot));
+	}
+
+	public int getPreviousX(int slot) {
+		return prevX[slot];
+	}
+
+	public int getPreviousY(int slot) {
+		return prevY[slot];
+	}
+
+	public void setPosition(int slot, int newX, int newY) {
+		POSITIONS.setRelease(positions, slot, pack(newX, newY));
+	}
+
+	public void setPreviousPosition(int slot, int newX, int newY) {
+		prevX[slot] = newX;
+		prevY[slot] = newY;
+	}
+
+	/**
+	 * Records that the current position of a walker has been drawn.
+	 *
+	 * @param slot int slot of the walker
+	 */
+	public void markDrawn(int slot) {
+		long position = getPosition(slot);
+
+		prevX[slot] = xOf(position);
+		prevY[slot] = yOf(position);
+	}
+
+	/**
+	 * @param slot int slot of the walker
+	 * @return int mask of RWDirectives direction bits the walker is allowed to move in
+	 */
+	public int getDirectiveMask(int slot) {
+		return (byte) DIRECTIVES.getAcquire(directives, slot);
+	}
+
+	/**
+	 * @param slot int slot of the walker
+	 * @param mask int mask of RWDirectives direction bits the walker is allowed to move in
+	 */
+	public void setDirectiveMask(int slot, int mask) {
+		DIRECTIVES.setRelease(directives, slot, (byte) mask);
+	}
+}
@@ -12,16 +12,31 @@
 package edu.uwm.cs790.assignment9;
 
 import edu.uwm.basecso.CSO;
+import edu.uwm.basecso.CSOClock;
 import edu.uwm.basecso.CSOMessage;
 import edu.uwm.basecso.CSOPayload;
+import edu.uwm.basecso.CSOTransport;
 import edu.uwm.basecso.CyberspatialLocation;
 import edu.uwm.basecso.GeospatialCoordinates;
 import edu.uwm.basecso.InfospatialCoordinates;
+import edu.uwm.basecso.Messageable;
 import edu.uwm.basecso.SociospatialCoordinates;
 
 import java.awt.Point;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.Date;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Implements a random walk controller that handles the setup of one or more walkers 
@@ -33,14 +48,48 @@ import java.util.Date;
  * 
  * The main walk loop in drawWalkers() is based on Lecture 5 slides.
  * 
+ * How the walkers themselves are run is chosen with setWalkerExecutionMode() before start().
+ * Every walker's random stream is derived from one master seed, set with setSeed() before setUp(),
+ * so a run with the same seed and walker count takes the same random draws, and in WalkerExecutionMode.TICK
+ * the same trajectories.
+ * 
+ * Drawing goes through an RWRenderer set with setRenderer() before setUp(). The default draws
+ * into the StdDraw window; an OffscreenRenderer writes frames to disk without a display, and a
+ * NullRenderer skips drawing for throughput runs.
+ * 
+ * Every step of every walker is counted in an RWHeatmap covering the walk boundary. It can be drawn
+ * as a layer under the walkers with setHeatmapLayer() and its counts read or written out with getHeatmap().
+ * Steps can also be recorded to disk with setTrajectoryRecorder() before setUp(), and a recording
+ * played back in place of live walkers with setReplay().
+ * 
+ * The walkers call the monitor directly unless setMonitorTransport() has them reach it through
+ * a CSOTransport connection, as they would a monitor in another process.
+ * 
  * @author lonny
  */	
 public class RandomWalkController {
 	private static long nextId = 0;
     private final int n; //nxn walk boundary 
     private final CSO monitor;
-    private boolean isRunning = false;
+    private Messageable monitorEndpoint; //what the walkers report to, the monitor itself unless set
+    private CSOTransport walkerTransport;
+    private volatile boolean isRunning = false;
+    private boolean isStopped = false;
     private ArrayList<RandomWalker> walkers;
+    private final RWWalkerStore walkerStore;
+    private final RWBoundaryGrid coverageIndex = new RWBoundaryGrid();
+    private long masterSeed = RWRandomSeeds.newMasterSeed();
+    private WalkerExecutionMode walkerExecutionMode = WalkerExecutionMode.PLATFORM_THREAD;
+    private ExecutorService walkerExecutor;
+    private long tickPeriodNanos = TimeUnit.MILLISECONDS.toNanos(100);
+    private RWTickScheduler tickScheduler;
+    private RWRenderer renderer;
+    private long framePeriodMillis = 50;
+    private final RWHeatmap heatmap;
+    private volatile boolean heatmapLayer = false;
+    private RWTrajectoryRecorder trajectoryRecorder;
+    private RWTrajectoryReplay replay;
+    private boolean replayToMonitor;
     
     /**
      * Constructor
@@ -52,23 +101,140 @@ public class RandomWalkController {
     	//construct randomWalk 
         n = initialBoundary;
         this.monitor = monitor;
+        this.monitorEndpoint = monitor;
         walkers = new ArrayList<RandomWalker>();
+        walkerStore = new RWWalkerStore();
+        heatmap = new RWHeatmap(n);
+    }
+    
+    /**
+     * Sets the master seed used to derive each walker's random stream.
+     * 
+     * @param seed long master seed
+     */
+    public void setSeed(long seed) {
+    	this.masterSeed = seed;
+    }
+    
+    public long getSeed() {
+    	return masterSeed;
+    }
+    
+    /**
+     * Sets how the walk is drawn. Must be called before setUp().
+     * 
+     * @param renderer RWRenderer to draw with
+     */
+    public void setRenderer(RWRenderer renderer) {
+    	this.renderer = renderer;
+    }
+    
+    public RWRenderer getRenderer() {
+    	return renderer;
+    }
+    
+    /**
+     * @return RWHeatmap counting the steps of every walker
+     */
+    public RWHeatmap getHeatmap() {
+    	return heatmap;
+    }
+    
+    /**
+     * Turns drawing the heatmap under the walkers on or off. Once on, cells walkers leave
+     * keep their heatmap colour even after it is turned off.
+     * 
+     * @param heatmapLayer boolean whether to draw the heatmap each frame
+     */
+    public void setHeatmapLayer(boolean heatmapLayer) {
+    	this.heatmapLayer = heatmapLayer;
+    }
+    
+    /**
+     * Sets the recorder every walker step is recorded to. Must be called before setUp().
+     * The caller closes the recorder once the walk is over.
+     * 
+     * @param recorder RWTrajectoryRecorder to record steps to, or null to record none
+     */
+    public void setTrajectoryRecorder(RWTrajectoryRecorder recorder) {
+    	this.trajectoryRecorder = recorder;
+    }
+    
+    public RWTrajectoryRecorder getTrajectoryRecorder() {
+    	return trajectoryRecorder;
+    }
+    
+    /**
+     * Plays a recording in place of live walkers. Must be called before setUp().
+     * The replayed walkers are drawn and counted in the heatmap like live ones and, if asked,
+     * report to the monitor after being assigned to the nearest coverage area.
+     * The walk ends once the whole recording has played.
+     * 
+     * @param replay RWTrajectoryReplay to play, with its speed set
+     * @param toMonitor boolean whether the replayed steps are reported to the monitor
+     */
+    public void setReplay(RWTrajectoryReplay replay, boolean toMonitor) {
+    	this.replay = replay;
+    	this.replayToMonitor = toMonitor;
+    }
+    
+    public RWTrajectoryReplay getReplay() {
+    	return replay;
+    }
+    
+    /**
+     * Has the walkers reach the monitor through a CSOTransport connection instead of calling it.
+     * Each walker is exported on the transport so the monitor's directives find their way back.
+     * A replay still reports to the monitor directly. Must be called before setUp().
+     * 
+     * @param transport CSOTransport the walkers are exported on
+     * @param monitorProxy Messageable standing in for the monitor, from a CSOConnection of that transport
+     */
+    public void setMonitorTransport(CSOTransport transport, Messageable monitorProxy) {
+    	this.walkerTransport = transport;
+    	this.monitorEndpoint = monitorProxy;
+    }
+    
+    /**
+     * Sets the time between frames.
+     * 
+     * @param period long time between frames
+     * @param unit TimeUnit of the period
+     */
+    public void setFramePeriod(long period, TimeUnit unit) {
+    	this.framePeriodMillis = unit.toMillis(period);
     }
     
     public void setUp() {
-    	this.initDrawSurface();
+    	Logger.log("Using master seed " + masterSeed);
+    	
+    	if (renderer == null) {
+    		renderer = new StdDrawRenderer();
+    	}
+    	
+    	renderer.init(n);
     	int areaSize = 5;
     	
     	ArrayList<RWBoundary> areas = this.createCoverageAreas(areaSize);
     	
     	for (RWBoundary area : areas) {
-    		this.createWalkerForArea(area);
+    		coverageIndex.add(area);
+    		
+    		if (replay == null) {
+    			this.createWalkerForArea(area);
+    		} else {
+    			renderer.drawArea(area);
+    		}
+    	}
+    	
+    	if (replay != null) {
+    		this.setUpReplay();
     	}
 
         monitor.enable();
         
-        StdDraw.show();
-        StdDraw.pause(50);
+        renderer.show();
+        pause(framePeriodMillis);
     }
     
     private ArrayList<RWBoundary> createCoverageAreas(int areaSize) {
@@ -92,73 +258,249 @@ public class RandomWalkController {
     	return areas;
     }
     
+    /**
+     * Adds a coverage area that walkers placed with addWalkerAt() can be assigned to.
+     * 
+     * @param area RWBoundary to cover
+     */
+    public void addCoverageArea(RWBoundary area) {
+    	coverageIndex.add(area);
+    }
+    
+    /**
+     * Creates a walker starting at a point and assigns it to the coverage area that contains the point,
+     * or to the nearest one within the walk boundary.
+     * Must be called after setUp() and before start().
+     * 
+     * @param start Point where the walker starts
+     * @return RWBoundary the walker was assigned to, or null if no area is close enough
+     */
+    public RWBoundary addWalkerAt(Point start) {
+    	RWBoundary area = coverageIndex.findNearest(start.x, start.y, 2 * n);
+    	
+    	if (area != null) {
+    		this.createWalker(area, start);
+    	}
+    	
+    	return area;
+    }
+    
+    private void setUpReplay() {
+    	replay.setWalkerStore(walkerStore);
+    	replay.setHeatmap(heatmap);
+    	
+    	if (replayToMonitor) {
+    		replay.setMonitor(monitor);
+    		
+    		for (int i = 0; i < replay.getWalkerCount(); i++) {
+    			Point start = replay.getStart(i);
+    			RWBoundary area = coverageIndex.findNearest(start.x, start.y, 2 * n);
+    			
+    			if (area != null) {
+    				this.sendBoundary(replay.getWalker(i), monitor, area);
+    			}
+    		}
+    	}
+    	
+    	Logger.log("Replaying " + replay.getWalkerCount() + " walkers at " + replay.getSpeed() + " times recorded speed.");
+    }
+    
     private void createWalkerForArea(RWBoundary bounds) {
-    	RandomWalker rw = new RandomWalker(getNextId(), monitor, bounds.center);
+    	this.createWalker(bounds, bounds.center);
+    }
+    
+    private void createWalker(RWBoundary bounds, Point start) {
+    	RandomWalker rw = new RandomWalker(getNextId(), monitorEndpoint, start, walkerStore, masterSeed);
+    	rw.setHeatmap(heatmap);
+    	rw.setTrajectoryRecorder(trajectoryRecorder);
+    	
+    	if (walkerTransport != null) {
+    		walkerTransport.export(rw);
+    	}
     	
     	walkers.add(rw);
     	
-        CSOPayload<RWBoundary> payload = new CSOPayload<RWBoundary>(bounds, 0, new Date(), new Date());
-        CSOMessage message = new CSOMessage(rw, monitor, null, payload, new Date());
-        
-        // send the CSO a payload with the initial walk boundary we want to maintain
-        monitor.receiveMessage(message);
+    	this.sendBoundary(rw, monitorEndpoint, bounds);
 
-        StdDraw.setPenColor(StdDraw.WHITE);
-        StdDraw.square(bounds.center.x, bounds.center.y, 5);
+        renderer.drawArea(bounds);
     }
     
-    private void initDrawSurface() {
-        //setup background with StdDraw
-        StdDraw.setScale(-n - 0.5, n + 0.5);
-        StdDraw.clear(StdDraw.GRAY); //background color
-        StdDraw.enableDoubleBuffering();
+    private void sendBoundary(Messageable walker, Messageable to, RWBoundary bounds) {
+        long now = CSOClock.nanoTime();
+        CSOPayload<RWBoundary> payload = new CSOPayload<RWBoundary>(bounds, 0, now, now);
+        CSOMessage message = new CSOMessage(walker, to, null, payload, now);
         
-        StdDraw.show();
+        // send the CSO a payload with the initial walk boundary we want to maintain
+        to.receiveMessage(message);
     }
     
     private void drawWalkers() {
-      while(isRunning) {
-    	 for (RandomWalker rw : walkers) {
-    		 this.drawWalker(rw);
+      while(isRunning && !Thread.currentThread().isInterrupted()) {
+    	 boolean replayDone = replay != null && replay.isFinished(); //draw one last frame once it is
+    	 
+    	 if (heatmapLayer) {
+    		 renderer.drawHeatmap(heatmap);
     	 }
     	 
-    	 StdDraw.show();
-    	 StdDraw.pause(50);
+    	 renderer.drawWalkers(walkerStore);
+    	 
+    	 renderer.show();
+    	 
+    	 if (replayDone) break;
+    	 
+    	 pause(framePeriodMillis);
       } 
+      
+      renderer.close();
     }
     
-    private void drawWalker(RandomWalker rw) {
-    	//Retrieve variables from randomWalkers 
-	
-		Point p = rw.getCurrentPoint();
-		Point prev = rw.getPreviousPoint();
-		
-		StdDraw.setPenColor(StdDraw.WHITE); //past steps
-        StdDraw.filledSquare(prev.x, prev.y, 0.5); 
-       
-        StdDraw.setPenColor(StdDraw.BLACK);
-        StdDraw.filledSquare(p.x, p.y, 0.5);
-
-   
-        rw.setPreviousPoint(new Point(p.x, p.y));
+    private static void pause(long millis) {
+    	try {
+    		Thread.sleep(millis);
+    	} catch (InterruptedException e) {
+    		Thread.currentThread().interrupt();
+    	}
+    }
+    
+    public void setWalkerExecutionMode(WalkerExecutionMode mode) {
+    	this.walkerExecutionMode = mode;
+    }
+    
+    public WalkerExecutionMode getWalkerExecutionMode() {
+    	return walkerExecutionMode;
+    }
+    
+    /**
+     * Sets the tick period used by WalkerExecutionMode.TICK.
+     * 
+     * @param period long time between ticks, or RWTickScheduler.AS_FAST_AS_POSSIBLE
+     * @param unit TimeUnit of the period
+     */
+    public void setTickPeriod(long period, TimeUnit unit) {
+    	this.tickPeriodNanos = unit.toNanos(period);
+    }
+    
+    /**
+     * @return RWTickScheduler running the walkers in WalkerExecutionMode.TICK, otherwise null
+     */
+    public RWTickScheduler getTickScheduler() {
+    	return tickScheduler;
     }
     
     public void start() {
     	this.isRunning = true;
     	
-	   	 for (RandomWalker rw : walkers) {
-			 rw.start();
-		 }
+    	if (replay != null) {
+    		new Thread(replay, "Replay Thread").start();
+    	} else {
+    		this.startWalkers();
+    	}
     	
     	this.drawWalkers();
     }
     
-    public void stop() {
+    /**
+     * Stops the walk and logs the step rate, stale steps and round trips of the run.
+     * Only the first call does anything and later calls wait for it to finish,
+     * so it is safe from a timer, a shutdown hook and main alike.
+     */
+    public synchronized void stop() {
+    	if (isStopped) {
+    		return;
+    	}
+    	
+    	isStopped = true;
     	this.isRunning = false;
     	
+    	 if (replay != null) {
+    		 replay.stop();
+    	 }
+    	
       	 for (RandomWalker rw : walkers) {
     		 rw.stopWalk();
     	 }
+      	 
+      	 if (walkerExecutor != null) {
+      		 walkerExecutor.shutdownNow();
+      	 }
+      	 
+      	 if (tickScheduler != null) {
+      		 tickScheduler.stop();
+      		 Logger.log("Walkers averaged " + tickScheduler.getStepsPerSecond() + " steps per second, "
+      				 + tickScheduler.getRefusedCount() + " reports were refused, " + tickScheduler.getUnansweredCount() + " went unanswered and "
+      				 + tickScheduler.getOverrunCount() + " ticks overran.");
+      	 }
+      	 
+      	 int staleWalkers = 0;
+      	 for (RandomWalker rw : walkers) {
+      		 if (rw.getStaleStepCount() > 0) staleWalkers++;
+      	 }
+      	 Logger.log(staleWalkers + " walkers took " + RandomWalker.getTotalStaleStepCount() + " steps on stale directives.");
+      	 
+      	 Histogram roundTrips = RandomWalker.getRoundTripNanos();
+      	 Logger.log("Walker round trips=" + roundTrips.getTotalCount() + " " + StageMetrics.micros(roundTrips));
+    }
+    
+    private void startWalkers() {
+    	if (walkerExecutionMode == WalkerExecutionMode.VIRTUAL_THREAD) {
+    		walkerExecutor = newVirtualThreadExecutor();
+    		
+    		if (walkerExecutor == null) {
+    			Logger.warn("Virtual threads are not available in this JVM, using a shared scheduler for walkers instead.");
+    			walkerExecutionMode = WalkerExecutionMode.SCHEDULED_EXECUTOR;
+    		}
+    	}
+    	
+    	switch (walkerExecutionMode) {
+    	case TICK:
+    		tickScheduler = new RWTickScheduler(walkers, monitorEndpoint, tickPeriodNanos, TimeUnit.NANOSECONDS);
+    		tickScheduler.start();
+    		break;
+    		
+    	case VIRTUAL_THREAD:
+    		for (RandomWalker rw : walkers) {
+    			walkerExecutor.execute(rw);
+    		}
+    		break;
+    		
+    	case SCHEDULED_EXECUTOR:
+    		ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(Runtime.getRuntime().availableProcessors(), walkerThreadFactory());
+    		walkerExecutor = scheduler;
+    		
+    		for (RandomWalker rw : walkers) {
+    			rw.scheduleWalk(scheduler);
+    		}
+    		break;
+    		
+    	case PLATFORM_THREAD:
+    	default:
+    		for (RandomWalker rw : walkers) {
+    			Thread t = new Thread(rw, "Walker Thread " + rw.getIdentifier());
+    			t.setPriority(Thread.MIN_PRIORITY);
+    			t.start();
+    		}
+    		break;
+    	}
+    }
+    
+    private static ThreadFactory walkerThreadFactory() {
+    	AtomicInteger count = new AtomicInteger();
+    	
+    	return r -> {
+    		Thread t = new Thread(r, "Walker Scheduler Thread " + count.getAndIncrement());
+    		t.setPriority(Thread.MIN_PRIORITY);
+    		t.setDaemon(true);
+    		return t;
+    	};
+    }
+    
+    // virtual threads are only in newer JVMs, so look them up rather than link against them
+    private static ExecutorService newVirtualThreadExecutor() {
+    	try {
+    		return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    	} catch (ReflectiveOperationException | UnsupportedOperationException e) {
+    		return null;
+    	}
     }
 
     private static long getNextId() {
@@ -169,24 +511,142 @@ public class RandomWalkController {
 //      Logger.setEnabled(false);
     	
      
-      RWPlanExecutor executor = new RWPlanExecutor();
-      RWPlanGenerator generator = new RWPlanGenerator(executor);
-      RWSituationAssessor assessor = new RWSituationAssessor(generator);
-      
       CyberspatialLocation location = new CyberspatialLocation(new GeospatialCoordinates(0,0,0), new InfospatialCoordinates(0,0,0), new SociospatialCoordinates(0,0,0));
             
-      CSO monitor = new CSORandomWalkMonitor(getNextId(), location, assessor, generator, executor);
+      //-Drw.shards=<n> spreads the walkers across n monitor pipelines
+      int shardCount = Integer.getInteger("rw.shards", 1);
+      CSO monitor;
+      
+      if (shardCount > 1) {
+    	  //each shard builds its own pipeline
+    	  monitor = new ShardedRandomWalkMonitor(getNextId(), location, shardCount, HandoffMode.RING_BUFFER, IngressMode.CONFLATING);
+      } else {
+    	  RWPlanExecutor executor = new RWPlanExecutor();
+    	  RWPlanGenerator generator = new RWPlanGenerator(executor);
+    	  RWSituationAssessor assessor = new RWSituationAssessor(generator);
+    	  
+    	  monitor = new CSORandomWalkMonitor(getNextId(), location, assessor, generator, executor, HandoffMode.RING_BUFFER, IngressMode.CONFLATING);
+      }
        
       //create and setup walkers
       RandomWalkController walkController = new RandomWalkController(50, monitor);  
+      //-Drw.walkers=platform_thread, scheduled_executor, virtual_thread or tick; virtual threads need a JVM that has them
+      walkController.setWalkerExecutionMode(WalkerExecutionMode.valueOf(System.getProperty("rw.walkers", "scheduled_executor").toUpperCase()));
+      
+      //-Drw.render=offscreen writes frames to -Drw.frames without a display, -Drw.render=none skips drawing
+      switch (System.getProperty("rw.render", "window")) {
+      case "offscreen":
+    	  walkController.setRenderer(new OffscreenRenderer(new File(System.getProperty("rw.frames", "frames")), OffscreenRenderer.DEFAULT_CELL_PIXELS, 20));
+    	  break;
+      case "none":
+    	  walkController.setRenderer(new NullRenderer());
+    	  break;
+      default:
+    	  walkController.setRenderer(new StdDrawRenderer());
+    	  break;
+      }
+      
+      //-Drw.heatmap=true draws the visit heatmap under the walkers, -Drw.heatmap.out writes the raw counts after the walk
+      walkController.setHeatmapLayer(Boolean.getBoolean("rw.heatmap"));
+      
+      //-Drw.record=<directory> records every step to memory-mapped segment files
+      String recordDirectory = System.getProperty("rw.record");
+      if (recordDirectory != null) {
+    	  try {
+    		  walkController.setTrajectoryRecorder(new RWTrajectoryRecorder(Paths.get(recordDirectory)));
+    	  } catch (IOException e) {
+    		  Logger.warn("Could not record to " + recordDirectory + ": " + e.getMessage());
+    	  }
+      }
+      
+      //-Drw.replay=<directory> plays a recording instead of walking, at -Drw.replay.speed times
+      //the recorded pace or "max", reporting to the monitor unless -Drw.replay.monitor=false
+      String replayDirectory = System.getProperty("rw.replay");
+      if (replayDirectory != null) {
+    	  try {
+    		  RWTrajectoryReplay replay = new RWTrajectoryReplay(Paths.get(replayDirectory));
+    		  String speed = System.getProperty("rw.replay.speed", "1");
+    		  replay.setSpeed(speed.equals("max") ? RWTrajectoryReplay.MAX_SPEED : Double.parseDouble(speed));
+    		  walkController.setReplay(replay, !System.getProperty("rw.replay.monitor", "true").equals("false"));
+    	  } catch (IOException e) {
+    		  Logger.warn("Could not replay " + replayDirectory + ": " + e.getMessage());
+    	  }
+      }
+      
+      //-Drw.transport=tcp or uds puts the monitor behind a CSOTransport and has the walkers reach it over a local connection
+      String transportKind = System.getProperty("rw.transport");
+      CSOTransport monitorTransport = null;
+      CSOTransport walkerTransport = null;
+      if (transportKind != null) {
+    	  try {
+    		  monitorTransport = new CSOTransport(RWOrderCodecs.newRegistry());
+    		  monitorTransport.export(monitor);
+    		  SocketAddress address = monitorTransport.listen(transportKind.equals("uds")
+    				  ? UnixDomainSocketAddress.of(Paths.get(System.getProperty("java.io.tmpdir"), "rw-monitor-" + ProcessHandle.current().pid() + ".sock"))
+    				  : new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+    		  
+    		  walkerTransport = new CSOTransport(RWOrderCodecs.newRegistry());
+    		  walkController.setMonitorTransport(walkerTransport, walkerTransport.connect(address).remote(monitor.getIdentifier()));
+    		  Logger.log("Walkers reach the monitor over " + address);
+    	  } catch (IOException e) {
+    		  Logger.warn("Could not connect the walkers over " + transportKind + ", they call the monitor directly: " + e.getMessage());
+    	  }
+      }
+      
+      //pass a master seed to reproduce an earlier run
+      if (args.length > 0) {
+    	  walkController.setSeed(Long.parseLong(args[0]));
+      }
 
       walkController.setUp();
       
+      //-Drw.duration=<seconds> ends a live walk after that long, otherwise it runs until the JVM is stopped
+      long durationSeconds = Long.getLong("rw.duration", 0);
+      if (durationSeconds > 0) {
+    	  Thread timer = new Thread(() -> {
+    		  pause(TimeUnit.SECONDS.toMillis(durationSeconds));
+    		  walkController.stop();
+    	  }, "Walk Timer");
+    	  timer.setDaemon(true);
+    	  timer.start();
+      }
+      
+      //report the walk even when the JVM is stopped from outside
+      Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+    	  walkController.stop();
+    	  Logger.flush();
+      }, "Walk Shutdown Thread"));
+      
       //draw walkers, this will loop until stopped.
       walkController.start();
-
+      walkController.stop();
  
       monitor.disable();
+      
+      if (walkerTransport != null) {
+    	  walkerTransport.close();
+      }
+      
+      if (monitorTransport != null) {
+    	  monitorTransport.close();
+      }
+      
+      if (walkController.getTrajectoryRecorder() != null) {
+    	  walkController.getTrajectoryRecorder().close();
+      }
+      
+      String heatmapFile = System.getProperty("rw.heatmap.out");
+      if (heatmapFile != null) {
+    	  try {
+    		  walkController.getHeatmap().writeCounts(Paths.get(heatmapFile));
+    	  } catch (IOException e) {
+    		  Logger.warn("Could not write heatmap to " + heatmapFile + ": " + e.getMessage());
+    	  }
+      }
+      
+      //the pipeline stage threads keep waiting for batches after the monitor is disabled
+      Logger.flush();
+      System.exit(0);
     }
 
 }
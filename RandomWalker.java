@@ -11,12 +11,17 @@
 
 package edu.uwm.cs790.assignment9;
 
-import edu.uwm.basecso.CSO;
+import edu.uwm.basecso.CSOClock;
 import edu.uwm.basecso.CSOMessage;
 import edu.uwm.basecso.CSOPayload;
 import edu.uwm.basecso.Messageable;
+import edu.uwm.basecso.TraceContext;
 import java.awt.Point;
-import java.util.Date;
+import java.util.SplittableRandom;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 
 /**
@@ -24,99 +29,312 @@ import java.util.Date;
  * The recieveMessage() method can change the randomWalk's course of direction when needed.
  * 
  * A walker is Runnable to so it can be ran on a background thread and Messeageable
- * so it can participate in messages from a CSO.
+ * so it can participate in messages from a CSO. It does not own a thread, so the same walker
+ * can run on a platform thread, a virtual thread, or as one task per step on a shared scheduler
+ * (see {@link WalkerExecutionMode}).
+ * 
+ * The walker's position and directives live in a slot of a {@link RWWalkerStore} shared with the
+ * other walkers, so the walker object itself only carries its identity and scheduling state.
+ * 
+ * Each walker draws from its own random stream. Walkers given the same master seed and slot
+ * make the same sequence of draws. Only in WalkerExecutionMode.TICK, where every step waits for
+ * the directives for the previous report, do they also take the same steps, so only a TICK run
+ * can be reproduced from its seed; in the other modes directives arrive whenever the pipeline gets to them.
+ * 
+ * Every position report is traced with the walker's id and a sequence number. A step taken
+ * while the directives for the latest report have not come back yet is a step on stale directives
+ * and is counted, per walker and across all walkers.
+ * 
+ * If the walker is given an {@link RWHeatmap}, every step is counted in it, including steps
+ * where every allowed direction was blocked and the walker stayed put. Given an
+ * {@link RWTrajectoryRecorder}, every step is also recorded with its sequence number and directives.
  * 
  * @author lonny and anupam
  */	
-public class RandomWalker extends Thread implements Messageable {
-	private Point currentPoint, prevPoint = new Point(0,0);
-	private RWDirectives currentDirectives = new RWDirectives(true, true, true, true);
-	private final CSO monitor;
+public class RandomWalker implements Runnable, Messageable {
+	private static final long STEP_PAUSE_MILLIS = 100;
+	private static final long MAX_STEP_PAUSE_MILLIS = 1600;
+	private static final LongAdder totalStaleSteps = new LongAdder();
+	private static final Histogram roundTripNanos = new Histogram();
+	
+	private final RWWalkerStore store;
+	private final int slot;
+	private final Messageable monitor;
+	private final SplittableRandom random;
 	private final long identifier;
-	private boolean isEnabled = false;
+	private volatile boolean isEnabled = false;
+	private long stepPause = STEP_PAUSE_MILLIS;
+	private volatile Thread walkThread;
+	private ScheduledExecutorService scheduler;
+	private final Runnable stepTask = this::scheduledStep;
+	private long sentSequence = 0;
+	private volatile long appliedSequence = 0;
+	private long staleSteps = 0;
+	private RWHeatmap heatmap;
+	private RWTrajectoryRecorder recorder;
+	private long stepSequence = 0;
 	
-    public RandomWalker(long id, CSO monitor, Point origin) {
+    public RandomWalker(long id, Messageable monitor, Point origin) {
+    	this(id, monitor, origin, new RWWalkerStore(1));
+    }
+    
+    /**
+     * Constructor that adds the walker to a store shared with other walkers.
+     * 
+     * @param id long identifier
+     * @param monitor Messageable to report positions to, the CSO itself or a proxy for one in another process
+     * @param origin Point the walk starts from
+     * @param store RWWalkerStore that holds the walker's position and directives
+     */
+    public RandomWalker(long id, Messageable monitor, Point origin, RWWalkerStore store) {
+    	this(id, monitor, origin, store, RWRandomSeeds.newMasterSeed());
+    }
+    
+    /**
+     * Constructor that adds the walker to a store shared with other walkers.
+     * 
+     * @param id long identifier
+     * @param monitor Messageable to report positions to, the CSO itself or a proxy for one in another process
+     * @param origin Point the walk starts from
+     * @param store RWWalkerStore that holds the walker's position and directives
+     * @param masterSeed long seed of the run, combined with the walker's slot to seed its random stream
+     */
+    public RandomWalker(long id, Messageable monitor, Point origin, RWWalkerStore store, long masterSeed) {
         //Construct and initialize all variables
-    	Point p = new Point(origin.x, origin.y);
-    	this.setCurrentPoint(p);
-    	
-    	this.setPreviousPoint(new Point(p.x, p.y));
+    	this.store = store;
+    	this.slot = store.add(id, origin.x, origin.y);
+    	this.random = RWRandomSeeds.newStream(masterSeed, slot);
     	
         this.monitor = monitor;
         
         this.identifier = id;
-        
-        this.setPriority(MIN_PRIORITY);
-        this.setName("Walker Thread " + id);
     }
 	
     public void startWalk() {
-    	Point cur = getCurrentPoint();
-    	int x = cur.x;
-    	int y = cur.y;
-    	
     	while (isEnabled) {
-		    double r = Math.random(); //0.0 < r < 1.0
-		    
 		    //simulate that it takes a bit of time to walk
-		    StdDraw.pause(100);
+		    try {
+		    	Thread.sleep(stepPause);
+		    } catch (InterruptedException e) {
+		    	break;
+		    }
 		    
-		    //check to see if the CSO has given us any advice and change r accordingly
-		    RWDirectives directive = getCurrentDirectives();
-		    
-		    if (r < 0.25 && directive.isEastAllowed) x--; //go East
-		    else if (r < 0.5 && directive.isWestAllowed) x++; //go West
-		    else if (r < 0.75 && directive.isSouthAllowed) y--; //go South
-		    else if (r < 1.00 && directive.isNorthAllowed) y++; //go North
-		    
-		    // send the CSO a message with current x,y
-		    informMonitor(new Point(x,y));
+		    step();
     	 }
     }
     
+    /**
+     * Takes a single step in an allowed direction and reports the new position to the monitor.
+     */
+    public void step() {
+	    // send the CSO a message with current x,y
+	    // and slow down while the monitor is turning messages away
+	    advance();
+	    
+	    if (informMonitor()) {
+	    	stepPause = STEP_PAUSE_MILLIS;
+	    } else {
+	    	stepPause = Math.min(stepPause * 2, MAX_STEP_PAUSE_MILLIS);
+	    }
+    }
+    
+    /**
+     * Takes a single step in an allowed direction without reporting it to the monitor.
+     * Nothing is allocated; a Point is only made when the position is reported.
+     * 
+     * @return long position the walker has moved to, packed by RWWalkerStore.pack()
+     */
+    public long advance() {
+    	long position = store.getPosition(slot);
+    	int x = RWWalkerStore.xOf(position);
+    	int y = RWWalkerStore.yOf(position);
+    	
+	    if (appliedSequence < sentSequence) {
+	    	staleSteps++;
+	    	totalStaleSteps.increment();
+	    }
+	    
+	    double r = random.nextDouble(); //0.0 < r < 1.0
+	    
+	    //check to see if the CSO has given us any advice and change r accordingly
+	    int directive = store.getDirectiveMask(slot);
+	    
+	    if (r < 0.25 && (directive & RWDirectives.EAST) != 0) x--; //go East
+	    else if (r < 0.5 && (directive & RWDirectives.WEST) != 0) x++; //go West
+	    else if (r < 0.75 && (directive & RWDirectives.SOUTH) != 0) y--; //go South
+	    else if (r < 1.00 && (directive & RWDirectives.NORTH) != 0) y++; //go North
+	    
+	    store.setPosition(slot, x, y);
+	    
+	    if (heatmap != null) {
+	    	heatmap.visit(x, y);
+	    }
+	    
+	    if (recorder != null) {
+	    	recorder.record(identifier, ++stepSequence, x, y, directive, CSOClock.nanoTime());
+	    }
+	    
+	    return RWWalkerStore.pack(x, y);
+    }
+    
+    /**
+     * Starts walking as one task per step on a shared scheduler instead of on a dedicated thread.
+     * 
+     * @param scheduler ScheduledExecutorService shared by many walkers
+     */
+    public void scheduleWalk(ScheduledExecutorService scheduler) {
+    	this.scheduler = scheduler;
+    	isEnabled = true;
+    	
+    	scheduler.schedule(stepTask, stepPause, TimeUnit.MILLISECONDS);
+    }
+    
+    private void scheduledStep() {
+    	if (!isEnabled) return;
+    	
+    	step();
+    	
+    	try {
+    		if (isEnabled) {
+    			scheduler.schedule(stepTask, stepPause, TimeUnit.MILLISECONDS);
+    		}
+    	} catch (RejectedExecutionException e) {
+    		isEnabled = false; //scheduler was shut down while stepping
+    	}
+    }
+    
     public void stopWalk() {
     	isEnabled = false;
     	
-    	this.interrupt();
+    	Thread t = walkThread;
+    	if (t != null) {
+    		t.interrupt();
+    	}
     }
     
     //Setter methods
-    private synchronized void setCurrentDirectives(RWDirectives directives) {
-        currentDirectives = directives;
+    private void setCurrentDirectives(RWDirectives directives) {
+        store.setDirectiveMask(slot, directives.toMask());
     }
     
 
-    private synchronized void setCurrentPoint(Point point) {
-    	this.currentPoint = point;
+    private void setCurrentPoint(Point point) {
+    	store.setPosition(slot, point.x, point.y);
+    }
+    
+    public void setPreviousPoint(Point point) {
+    	store.setPreviousPosition(slot, point.x, point.y);
     }
     
-    public synchronized void setPreviousPoint(Point point) {
-    	this.prevPoint = point;
+    /**
+     * Sets the heatmap every step is counted in. Must be called before the walk starts.
+     * 
+     * @param heatmap RWHeatmap to count steps in, or null to count none
+     */
+    public void setHeatmap(RWHeatmap heatmap) {
+    	this.heatmap = heatmap;
+    }
+    
+    /**
+     * Sets the recorder every step is recorded to. Must be called before the walk starts.
+     * 
+     * @param recorder RWTrajectoryRecorder to record steps to, or null to record none
+     */
+    public void setTrajectoryRecorder(RWTrajectoryRecorder recorder) {
+    	this.recorder = recorder;
     }
     
     //Getter methods    
-    private synchronized RWDirectives getCurrentDirectives() {
-    	Logger.log("Getting local current directive.");
-
-        return currentDirectives;
+    public Point getCurrentPoint() {
+    	return new Point(store.getX(slot), store.getY(slot));
+    }
+    
+    public Point getPreviousPoint() {
+    	return new Point(store.getPreviousX(slot), store.getPreviousY(slot));
+    }
+    
+    /**
+     * @return int slot of this walker in its RWWalkerStore
+     */
+    public int getSlot() {
+    	return slot;
+    }
+    
+    /**
+     * @return long sequence number of the latest report the monitor has answered
+     */
+    public long getAppliedSequence() {
+    	return appliedSequence;
     }
     
-    public synchronized Point getCurrentPoint() {
-    	return currentPoint;
+    /**
+     * @return long number of steps this walker took before the directives for its latest report came back
+     */
+    public long getStaleStepCount() {
+    	return staleSteps;
     }
     
-    public synchronized Point getPreviousPoint() {
-    	return prevPoint;
+    /**
+     * @return long number of steps all walkers took before the directives for their latest report came back
+     */
+    public static long getTotalStaleStepCount() {
+    	return totalStaleSteps.sum();
     }
     
-    public void informMonitor(Point position) {
+    /**
+     * @return Histogram of the nanoseconds from a walker sending a report to applying the answer, over all walkers
+     */
+    public static Histogram getRoundTripNanos() {
+    	return roundTripNanos;
+    }
+    
+    /**
+     * Sends the current position to the monitor.
+     * 
+     * @return boolean whether the monitor accepted the message
+     */
+    public boolean informMonitor() {
+        Logger.trace("Sending new location.");
+        return monitor.receiveMessage(createPositionMessage());
+    }
+    
+    /**
+     * Moves the walker to a position and sends it to the monitor.
+     * 
+     * @param position Point the walker has moved to
+     * @return boolean whether the monitor accepted the message
+     */
+    public boolean informMonitor(Point position) {
     	this.setCurrentPoint(position);
-        CSOPayload<Point> payload = new CSOPayload<Point>(position, 0, new Date(), new Date());
-        CSOMessage message = new CSOMessage(this, monitor, null, payload, new Date());
-        Logger.log("Sending new location.");
-        monitor.receiveMessage(message); //sent from the main thread
+        Logger.trace("Sending new location.");
+        return monitor.receiveMessage(createPositionMessage(position)); //sent from the main thread
       }
     
+    /**
+     * Wraps the current position in a message to the monitor without sending it,
+     * so a caller can batch the reports of many walkers.
+     * 
+     * @return CSOMessage addressed to the monitor
+     */
+    public CSOMessage createPositionMessage() {
+    	long position = store.getPosition(slot);
+    	
+    	return createPositionMessage(new Point(RWWalkerStore.xOf(position), RWWalkerStore.yOf(position)));
+    }
+    
+    /**
+     * Wraps a position in a message to the monitor without sending it,
+     * so a caller can batch the reports of many walkers.
+     * 
+     * @param position Point to report
+     * @return CSOMessage addressed to the monitor
+     */
+    public CSOMessage createPositionMessage(Point position) {
+        long now = CSOClock.nanoTime();
+        CSOPayload<Point> payload = new CSOPayload<Point>(position, 0, now, now);
+        return new CSOMessage(this, monitor, null, payload, now, new TraceContext(identifier, ++sentSequence, now));
+    }
+    
     @Override
     public boolean receiveMessage(CSOMessage message) {
         // the monitor will send us back advisory directions
@@ -125,22 +343,46 @@ public class RandomWalker extends Thread implements Messageable {
         // so we may need to synchronize updating the currentDirectives
         
         if (message != null) {
-        	Logger.log("Walker " + this.identifier + " received new directive.");
+        	Logger.trace(() -> "Walker " + this.identifier + " received new directive.");
 
-            RWDirectives directives = (RWDirectives) message.payload.order; 
-            setCurrentDirectives(directives);
+            // a message without a payload only acknowledges a report the monitor left the directives alone for
+            if (message.payload != null) {
+            	RWDirectives directives = (RWDirectives) message.payload.order; 
+            	setCurrentDirectives(directives);
+            }
+            
+            if (message.trace != null) {
+            	acknowledge(message.trace);
+            }
         }
         
         return true;
     }
+    
+    /**
+     * Records that the monitor has answered a report, either by sending directives
+     * or by leaving the current directives in place, and how long the round trip from
+     * sending the report to applying the answer took.
+     * 
+     * @param trace TraceContext of the answered report
+     */
+    public void acknowledge(TraceContext trace) {
+    	if (trace.sequence > appliedSequence) {
+    		appliedSequence = trace.sequence;
+    	}
+    	
+    	roundTripNanos.record(trace.elapsed(CSOClock.nanoTime()));
+    }
 
 
 	@Override
 	public void run() {
 		//Run on new thread
+		walkThread = Thread.currentThread();
 		isEnabled = true;
 		
 		startWalk();
+		walkThread = null;
 	}
 
 
@@ -0,0 +1,134 @@
+package edu.uwm.cs790.assignment9;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The drawing shared by the {@link RWRenderer}s that paint one cell per lattice point:
+ * which walkers and heatmap cells to paint each frame and in which colours.
+ * A subclass only says how to fill a cell and outline an area on its own surface, and how to present a frame.
+ *
+ * Previous positions are painted white and current positions black. After the first frame, and after
+ * an area is drawn, only walkers that moved since they were last drawn are painted.
+ *
+ * With the heatmap layer on, only cells whose heatmap colour changed are repainted, the area outlines are
+ * drawn back over them, every walker is painted on top each frame, and cells walkers leave take their
+ * heatmap colour instead of white.
+ *
+ * @author agent
+ */
+public abstract class RasterRenderer implements RWRenderer {
+	protected static final int VISITED_ARGB = Color.WHITE.getRGB();
+	protected static final int WALKER_ARGB = Color.BLACK.getRGB();
+	private static final int UNVISITED = 0; // transparent, so never a heatmap colour
+
+	protected int n;
+	protected boolean fullFrame = true;
+	private final List<RWBoundary> areas = new ArrayList<>();
+	private int[] heatColors;
+	private int[] drawnHeatColors;
+	private int heatExtent;
+	private int heatWidth;
+
+	/**
+	 * Paints one lattice cell. Cells off the surface are ignored.
+	 *
+	 * @param x int lattice x
+	 * @param y int lattice y
+	 * @param argb int colour
+	 */
+	protected abstract void fillCell(int x, int y, int argb);
+
+	/**
+	 * Draws the outline of a coverage area over whatever is under it.
+	 *
+	 * @param area RWBoundary to outline
+	 */
+	protected abstract void outline(RWBoundary area);
+
+	/**
+	 * Forgets everything drawn, for init() of a subclass to call before setting up its surface.
+	 *
+	 * @param n int the surface covers -n to n on both axes
+	 */
+	protected void reset(int n) {
+		this.n = n;
+		fullFrame = true;
+		areas.clear();
+		heatColors = null;
+		drawnHeatColors = null;
+	}
+
+	@Override
+	public void drawArea(RWBoundary area) {
+		areas.add(area);
+		outline(area);
+
+		fullFrame = true;
+	}
+
+	@Override
+	public void drawHeatmap(RWHeatmap heatmap) {
+		heatExtent = heatmap.getExtent();
+		heatWidth = heatmap.getWidth();
+
+		if (drawnHeatColors == null || drawnHeatColors.length != heatWidth * heatWidth) {
+			heatColors = null;
+			drawnHeatColors = new int[heatWidth * heatWidth];
+			Arrays.fill(drawnHeatColors, UNVISITED);
+		}
+
+		heatColors = heatmap.toColors(heatColors, UNVISITED);
+		boolean changed = false;
+
+		for (int i = 0; i < heatColors.length; i++) {
+			int color = heatColors[i];
+
+			if (color != UNVISITED && color != drawnHeatColors[i]) {
+				fillCell(i % heatWidth - heatExtent, i / heatWidth - heatExtent, color);
+				drawnHeatColors[i] = color;
+				changed = true;
+			}
+		}
+
+		if (changed) {
+			for (RWBoundary area : areas) {
+				outline(area);
+			}
+		}
+	}
+
+	@Override
+	public void drawWalkers(RWWalkerStore store) {
+		for (int slot = 0, size = store.size(); slot < size; slot++) {
+			//Retrieve both coordinates from the walker store in one read
+			long position = store.getPosition(slot);
+			int x = RWWalkerStore.xOf(position);
+			int y = RWWalkerStore.yOf(position);
+			int prevX = store.getPreviousX(slot);
+			int prevY = store.getPreviousY(slot);
+
+			if (x == prevX && y == prevY && !fullFrame && drawnHeatColors == null) {
+				continue; //nothing changed since the last frame
+			}
+
+			fillCell(prevX, prevY, visitedColor(prevX, prevY)); //past steps
+			fillCell(x, y, WALKER_ARGB);
+
+			store.setPreviousPosition(slot, x, y);
+		}
+	}
+
+	// the heatmap colour of a cell once the layer is on, otherwise the visited colour
+	private int visitedColor(int x, int y) {
+		if (drawnHeatColors == null || Math.abs(x) > heatExtent || Math.abs(y) > heatExtent) {
+			return VISITED_ARGB;
+		}
+
+		int color = drawnHeatColors[(y + heatExtent) * heatWidth + x + heatExtent];
+
+		return color == UNVISITED ? VISITED_ARGB : color;
+	}
+}
@@ -0,0 +1,125 @@
+package edu.uwm.cs790.assignment9;
+
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * A {@link StageHandoff} backed by a preallocated ring of {@link Queue} slots for a single producing and a single consuming stage.
+ *
+ * The producer claims the next sequence number, waits only if the consumer is a full ring behind, swaps its filled {@link Queue}
+ * into the slot for that sequence and publishes the sequence. The consumer waits for the next published sequence, swaps its drained
+ * {@link Queue} into the slot and releases the sequence back to the producer. Neither side has to meet the other, so a stage that
+ * spikes only stalls its neighbours once the ring is full or empty.
+ *
+ * Empty batches are not published, so an idle producer does not use up slots.
+ *
+ * @author agent
+ *
+ * @param <Q> generic type parameter for any {@link Queue}
+ */
+public class RingBufferHandoff<Q extends Queue<?>> implements StageHandoff<Q> {
+	public static final int DEFAULT_CAPACITY = 16;
+
+	private static final int SPIN_TRIES = 100;
+	private static final int YIELD_TRIES = 100;
+	private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+	private final Object[] slots;
+	private final int mask;
+	private final AtomicLong published = new AtomicLong(-1);
+	private final AtomicLong released = new AtomicLong(-1);
+	private long claimed = -1;	// only touched by the producer
+	private long consumed = -1;	// only touched by the consumer
+
+	/**
+	 * Constructor that preallocates one {@link Queue} per slot.
+	 *
+	 * @param capacity number of batches the producer may run ahead of the consumer, must be a power of two
+	 * @param queueFactory creates the empty queues held in the slots
+	 */
+	public RingBufferHandoff(int capacity, Supplier<Q> queueFactory) {
+		if (capacity < 1 || Integer.bitCount(capacity) != 1) {
+			throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+		}
+
+		this.slots = new Object[capacity];
+		this.mask = capacity - 1;
+
+		for (int i = 0; i < capacity; i++) {
+			slots[i] = queueFactory.get();
+		}
+	}
+
+	@Override
+	public Q publish(Q batch) throws InterruptedException {
+		if (batch.isEmpty()) {
+			return batch;
+		}
+
+		long sequence = ++claimed;
+		long wrapPoint = sequence - slots.length;
+
+		for (int tries = 0; released.get() < wrapPoint; tries++) {
+			backOff(tries);
+		}
+
+		Q spare = swap(sequence, batch);
+		published.set(sequence);
+
+		return spare;
+	}
+
+	@Override
+	public Q take(Q drained) throws InterruptedException {
+		long sequence = ++consumed;
+
+		for (int tries = 0; published.get() < sequence; tries++) {
+			backOff(tries);
+		}
+
+		Q batch = swap(sequence, drained);
+		released.set(sequence);
+
+		return batch;
+	}
+
+	@Override
+	public HandoffMode getMode() {
+		return HandoffMode.RING_BUFFER;
+	}
+
+	/**
+	 * @return number of published batches the consumer has not taken yet
+	 */
+	public long getBacklog() {
+		return published.get() - released.get();
+	}
+
+	@SuppressWarnings("unchecked")
+	private Q swap(long sequence, Q queue) {
+		int index = (int) (sequence & mask);
+		Q previous = (Q) slots[index];
+		slots[index] = queue;
+
+		return previous;
+	}
+
+	// spin briefly, then yield, then park for a growing interval so an idle stage does not burn a core
+	private static void backOff(int tries) throws InterruptedException {
+		if (Thread.interrupted()) {
+			throw new InterruptedException();
+		}
+
+		if (tries < SPIN_TRIES) {
+			Thread.onSpinWait();
+		} else if (tries < SPIN_TRIES + YIELD_TRIES) {
+			Thread.yield();
+		} else {
+			int parks = Math.min(tries - SPIN_TRIES - YIELD_TRIES, 10);
+			LockSupport.parkNanos(Math.min(1000L << parks, MAX_PARK_NANOS));
+		}
+	}
+}
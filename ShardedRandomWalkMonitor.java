@@ -0,0 +1,222 @@
+/**
+ * Title: ShardedRandomWalkMonitor.java
+ * Function:
+ *  A CSO that spreads walkers across several CSORandomWalkMonitor pipelines
+ * History:
+ *  Date         Author              Changes
+ *  10.17.2026   agent@local         initial
+**/
+
+package edu.uwm.cs790.assignment9;
+
+import edu.uwm.basecso.CSO;
+import edu.uwm.basecso.CSOMessage;
+import edu.uwm.basecso.CyberspatialLocation;
+import edu.uwm.basecso.OverflowPolicy;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * ShardedRandomWalkMonitor monitors a random walk with several independent
+ * CSORandomWalkMonitors, each with its own RWSituationAssessor, RWPlanGenerator
+ * and RWPlanExecutor, so the stages of one pipeline no longer limit how many
+ * walkers can be monitored.
+ *
+ * Every message is routed by the identifier of the walker that sent it to the
+ * shard at that identifier modulo the number of shards, so all of a walker's
+ * messages go through the same pipeline in the order they were sent, and the
+ * walker's boundary and last directives live in that shard alone. Messages
+ * without a sender go to the first shard. A boundary is also given, without its
+ * sender, to every other shard so each one knows every covered area. Those copies
+ * bypass the other shards' bounded ingress, so they are never turned away, and are
+ * counted by getSharedCount() rather than getRoutedCount().
+ *
+ * Each shard has its own ingress, so the ingress capacity and OverflowPolicy
+ * apply per shard, and its own PipelineMetrics, which are logged shard by shard
+ * when the monitor is disabled.
+ *
+ * @author agent
+ */
+public class ShardedRandomWalkMonitor extends CSO {
+    private final CSORandomWalkMonitor[] shards;
+    private final AtomicLongArray routedCounts;
+    private final AtomicLong sharedCount = new AtomicLong();
+
+    /**
+     * Constructor
+     *
+     * @param id long identifier, shared by every shard
+     * @param location CyberspatialLocation
+     * @param shardCount int number of pipelines, typically the number of cores to spare
+     * @param handoffMode HandoffMode used between every stage of every pipeline
+     * @param ingressMode IngressMode deciding which messages wait to be processed
+     */
+    public ShardedRandomWalkMonitor(long id, CyberspatialLocation location, int shardCount, HandoffMode handoffMode, IngressMode ingressMode) {
+        this(id, location, shardCount, handoffMode, DEFAULT_INGRESS_CAPACITY, OverflowPolicy.DROP_NEWEST, ingressMode);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param id long identifier, shared by every shard
+     * @param location CyberspatialLocation
+     * @param shardCount int number of pipelines, typically the number of cores to spare
+     * @param handoffMode HandoffMode used between every stage of every pipeline
+     * @param ingressCapacity int maximum number of messages waiting to be processed by each shard when queued
+     * @param overflowPolicy OverflowPolicy applied when walkers send faster than a shard drains a queued ingress
+     * @param ingressMode IngressMode deciding which messages wait to be processed
+     */
+    public ShardedRandomWalkMonitor(long id, CyberspatialLocation location, int shardCount, HandoffMode handoffMode, int ingressCapacity, OverflowPolicy overflowPolicy, IngressMode ingressMode) {
+        // the shards do the queueing and processing, so this CSO needs no services or queue of its own
+        super(id, location, null, null, null, 1, overflowPolicy);
+
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("shardCount must be positive: " + shardCount);
+        }
+
+        shards = new CSORandomWalkMonitor[shardCount];
+        routedCounts = new AtomicLongArray(shardCount);
+
+        for (int i = 0; i < shardCount; i++) {
+            RWPlanExecutor executor = new RWPlanExecutor();
+            RWPlanGenerator generator = new RWPlanGenerator(executor);
+            RWSituationAssessor assessor = new RWSituationAssessor(generator);
+
+            shards[i] = new CSORandomWalkMonitor(id, location, assessor, generator, executor, handoffMode, ingressCapacity, overflowPolicy, ingressMode);
+        }
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * @param walkerId long identifier of a walker
+     * @return int index of the shard that monitors the walker
+     */
+    public int shardOf(long walkerId) {
+        return (int) Math.floorMod(walkerId, (long) shards.length);
+    }
+
+    public CSORandomWalkMonitor getShard(int index) {
+        return shards[index];
+    }
+
+    /**
+     * @param index int index of a shard
+     * @return PipelineMetrics of the shard's pipeline
+     */
+    public PipelineMetrics getPipelineMetrics(int index) {
+        return shards[index].getPipelineMetrics();
+    }
+
+    /**
+     * @param index int index of a shard
+     * @return long number of messages routed to the shard, not counting shared boundaries
+     */
+    public long getRoutedCount(int index) {
+        return routedCounts.get(index);
+    }
+
+    /**
+     * @return long number of boundary copies given to shards other than the one that owns the walker
+     */
+    public long getSharedCount() {
+        return sharedCount.get();
+    }
+
+    /**
+     * @return long number of positions replaced by a newer position before being processed, over every shard
+     */
+    public long getConflatedCount() {
+        long count = 0;
+
+        for (CSORandomWalkMonitor shard : shards) {
+            count += shard.getConflatedCount();
+        }
+
+        return count;
+    }
+
+    @Override
+    public long getDroppedCount() {
+        long count = 0;
+
+        for (CSORandomWalkMonitor shard : shards) {
+            count += shard.getDroppedCount();
+        }
+
+        return count;
+    }
+
+    @Override
+    public long getRejectedCount() {
+        long count = 0;
+
+        for (CSORandomWalkMonitor shard : shards) {
+            count += shard.getRejectedCount();
+        }
+
+        return count;
+    }
+
+    @Override
+    public void setBlockTimeout(long timeout, TimeUnit unit) {
+        super.setBlockTimeout(timeout, unit);
+
+        for (CSORandomWalkMonitor shard : shards) {
+            shard.setBlockTimeout(timeout, unit);
+        }
+    }
+
+    /**
+     * Hands the message to the shard of the walker that sent it.
+     *
+     * @return boolean whether that shard accepted the message
+     */
+    @Override
+    public boolean receiveMessage(CSOMessage message) {
+        int index = message.fromCSO != null ? shardOf(message.fromCSO.getIdentifier()) : 0;
+
+        if (message.payload != null && message.payload.order instanceof RWBoundary && message.fromCSO != null) {
+            shareBoundary(message, index);
+        }
+
+        routedCounts.incrementAndGet(index);
+
+        return shards[index].receiveMessage(message);
+    }
+
+    @Override
+    public void enable() {
+        for (CSORandomWalkMonitor shard : shards) {
+            shard.enable();
+        }
+    }
+
+    @Override
+    public void disable() {
+        Logger.log(sharedCount.get() + " boundaries shared between " + shards.length + " shards.");
+
+        for (int i = 0; i < shards.length; i++) {
+            Logger.log("Shard " + i + " of " + shards.length + ", " + routedCounts.get(i) + " messages routed:");
+            shards[i].disable();
+        }
+    }
+
+    // each shard processes its own messages on its own threads
+    @Override
+    protected void processMessages() {
+    }
+
+    // the other shards only need the area, without a sender to answer
+    private void shareBoundary(CSOMessage message, int owner) {
+        for (int i = 0; i < shards.length; i++) {
+            if (i != owner) {
+                shards[i].shareArea((RWBoundary) message.payload.order, message.timeSentNanos);
+                sharedCount.incrementAndGet();
+            }
+        }
+    }
+}
@@ -1,34 +1,52 @@
 package edu.uwm.cs790.assignment9;
 
 import java.util.Queue;
-import java.util.concurrent.Exchanger;
 import java.util.function.Consumer;
 
 /**
- * A SingleExchangeProcessor encapsulates the logic of a run loop that exchanges a {@link Queue} of data in from another {@link Thread} using an {@link Exchanger}.
+ * A SingleExchangeProcessor encapsulates the logic of a run loop that exchanges a {@link Queue} of data in from another {@link Thread} using a {@link StageHandoff}.
  * It processes the data in the inbound {@link Queue} using the {@link Consumer} passed in the constructor. The {@link Consumer} does some sort of work with the {@link Queue}
- * that is exchanged through the inbound {@link Exchanger}.
+ * that is exchanged through the inbound {@link StageHandoff}.
  * 
  * Useful for implementing the end of a pipeline of producer-consumer {@link Thread} instances that need to exchange a {@link Queue} of data to process.
  * 
+ * Every take and process call is timed into the {@link StageMetrics} of the stage, along with the size of each batch processed.
+ * 
  * @author lonny
  *
  * @param <IN> generic type parameter for any {@link Queue}
  */
 public class SingleExchangeProcessor<IN extends Queue<?>> {
-	private final Exchanger<IN> inExchanger;
+	private final StageHandoff<IN> inHandoff;
 	private final Consumer<IN> process;
+	private final StageMetrics metrics;
 	
 	/**
-	 * Constructor that takes an {@link Exchanger} that exchanges a {@link Queue} and a {@link Consumer} to consume the data in the queue. 
+	 * Constructor that takes a {@link StageHandoff} that hands over a {@link Queue} and a {@link Consumer} to consume the data in the queue. 
 	 * 
-	 * @param inExchanger an {@link Exchanger} that exchanges queues
+	 * @param inHandoff a {@link StageHandoff} that hands over queues from the previous stage
 	 * @param process a {@link Consumer} to handle processing the data in a {@link Queue}, but returns nothing
 	 */
-	public SingleExchangeProcessor(Exchanger<IN> inExchanger, Consumer<IN> process) {
+	public SingleExchangeProcessor(StageHandoff<IN> inHandoff, Consumer<IN> process) {
+		this(inHandoff, process, new StageMetrics("stage"));
+	}
+
+	/**
+	 * Constructor that also takes the {@link StageMetrics} the stage records into.
+	 * 
+	 * @param inHandoff a {@link StageHandoff} that hands over queues from the previous stage
+	 * @param process a {@link Consumer} to handle processing the data in a {@link Queue}, but returns nothing
+	 * @param metrics {@link StageMetrics} of the stage
+	 */
+	public SingleExchangeProcessor(StageHandoff<IN> inHandoff, Consumer<IN> process, StageMetrics metrics) {
 		super();
-		this.inExchanger = inExchanger;
+		this.inHandoff = inHandoff;
 		this.process = process;
+		this.metrics = metrics;
+	}
+
+	public StageMetrics getMetrics() {
+		return metrics;
 	}
 	
 	/**
@@ -44,21 +62,26 @@ public class SingleExchangeProcessor<IN extends Queue<?>> {
 		try {
 			Thread.sleep(500);
 		} catch (InterruptedException e1) {
-			Logger.log(e1.getMessage());
+			Logger.warn(e1.getMessage());
 		}
 		
 		do {
 			try {
 				//Logger.log("Exchanging inbound queue.");
-				inQueue = inExchanger.exchange(inQueue);
+				long start = System.nanoTime();
+				inQueue = inHandoff.take(inQueue);
+				long end = System.nanoTime();
+				metrics.getTakeWaitNanos().record(end - start);
 				//Logger.log("Finished exchanging inbound queue. Size: " + assessments.size());
 			
 				if (!inQueue.isEmpty()) {
+					metrics.getBatchSizes().record(inQueue.size());
 					process.accept(inQueue);
+					metrics.getProcessNanos().record(System.nanoTime() - end);
 				}
 
 			} catch (Exception e) {
-				Logger.log("Exception occured in dualExchanger: " + e.getMessage());
+				Logger.warn(() -> "Exception occured in dualExchanger: " + e.getMessage());
 			}
 
 			
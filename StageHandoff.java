@@ -0,0 +1,41 @@
+package edu.uwm.cs790.assignment9;
+
+import java.util.Queue;
+
+/**
+ * A StageHandoff moves a {@link Queue} of data from one pipeline stage to the next.
+ * The producing stage calls {@link #publish(Queue)} with a filled {@link Queue} and receives an empty one back to keep filling.
+ * The consuming stage calls {@link #take(Queue)} with the {@link Queue} it has drained and receives the next filled one.
+ *
+ * Queues are swapped rather than copied, so ownership of a {@link Queue} passes to the other side of the handoff
+ * and the caller must only use the {@link Queue} that was returned to it.
+ *
+ * @author agent
+ *
+ * @param <Q> generic type parameter for any {@link Queue}
+ */
+public interface StageHandoff<Q extends Queue<?>> {
+
+	/**
+	 * Hands a {@link Queue} of data to the consuming stage.
+	 *
+	 * @param batch a {@link Queue} of data for the next stage
+	 * @return a {@link Queue} the producing stage can fill next
+	 * @throws InterruptedException if interrupted while waiting for the consuming stage
+	 */
+	public Q publish(Q batch) throws InterruptedException;
+
+	/**
+	 * Receives the next {@link Queue} of data from the producing stage.
+	 *
+	 * @param drained the {@link Queue} that the consuming stage has finished with
+	 * @return the next {@link Queue} of data to process
+	 * @throws InterruptedException if interrupted while waiting for the producing stage
+	 */
+	public Q take(Q drained) throws InterruptedException;
+
+	/**
+	 * @return the {@link HandoffMode} that created this handoff, so stages can create their downstream handoff the same way
+	 */
+	public HandoffMode getMode();
+}
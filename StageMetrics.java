@@ -0,0 +1,101 @@
+package edu.uwm.cs790.assignment9;
+
+import edu.uwm.basecso.CSOClock;
+import edu.uwm.basecso.TraceContext;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency and batch size histograms for one stage of the pipeline.
+ *
+ * Time a stage spends processing a batch is kept apart from the time it spends waiting,
+ * either to take a batch from the stage before it or to publish a batch to the stage after it,
+ * so a slow stage can be told apart from one that is only held up by its neighbours.
+ * Traced items also record their hop, the time from leaving the previous stage to leaving this one.
+ * All times are in nanoseconds.
+ *
+ * @author agent
+ */
+public class StageMetrics {
+	private final String name;
+	private final Histogram processNanos = new Histogram();
+	private final Histogram takeWaitNanos = new Histogram();
+	private final Histogram publishWaitNanos = new Histogram();
+	private final Histogram batchSizes = new Histogram();
+	private final Histogram hopNanos = new Histogram();
+
+	/**
+	 * Constructor
+	 *
+	 * @param name String name of the stage
+	 */
+	public StageMetrics(String name) {
+		this.name = name;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public Histogram getProcessNanos() {
+		return processNanos;
+	}
+
+	public Histogram getTakeWaitNanos() {
+		return takeWaitNanos;
+	}
+
+	public Histogram getPublishWaitNanos() {
+		return publishWaitNanos;
+	}
+
+	public Histogram getBatchSizes() {
+		return batchSizes;
+	}
+
+	public Histogram getHopNanos() {
+		return hopNanos;
+	}
+
+	/**
+	 * Records that a traced item is leaving this stage.
+	 *
+	 * @param trace TraceContext of the item, ignored if null
+	 */
+	public void recordHop(TraceContext trace) {
+		if (trace != null) {
+			hopNanos.record(trace.mark(CSOClock.nanoTime()));
+		}
+	}
+
+	public void reset() {
+		processNanos.reset();
+		takeWaitNanos.reset();
+		publishWaitNanos.reset();
+		batchSizes.reset();
+		hopNanos.reset();
+	}
+
+	/**
+	 * @return String one line summary of the stage with times in microseconds
+	 */
+	public String summary() {
+		return String.format("%-10s batches=%d size[p50=%d p99=%d max=%d] process%s take-wait%s publish-wait%s hop%s",
+				name, batchSizes.getTotalCount(),
+				batchSizes.getValueAtPercentile(50), batchSizes.getValueAtPercentile(99), batchSizes.getMax(),
+				micros(processNanos), micros(takeWaitNanos), micros(publishWaitNanos), micros(hopNanos));
+	}
+
+	static String micros(Histogram histogram) {
+		if (histogram.getTotalCount() == 0) {
+			return "[-]";
+		}
+
+		return String.format("[p50=%d p90=%d p99=%d max=%d us]",
+				toMicros(histogram.getValueAtPercentile(50)), toMicros(histogram.getValueAtPercentile(90)),
+				toMicros(histogram.getValueAtPercentile(99)), toMicros(histogram.getMax()));
+	}
+
+	private static long toMicros(long nanos) {
+		return TimeUnit.NANOSECONDS.toMicros(nanos);
+	}
+}
@@ -0,0 +1,128 @@
+package edu.uwm.cs790.assignment9;
+
+import java.util.Arrays;
+
+/**
+ * A {@link RWRenderer} that draws into the StdDraw window, which needs a display.
+ * Cells are written straight into the pixels of the StdDraw offscreen buffer with StdDraw.rasterSquare(),
+ * which is cheap enough for 10^5 walkers a frame, while the boundary outlines are still drawn through
+ * the regular StdDraw API. What is painted each frame is decided by {@link RasterRenderer}.
+ *
+ * Only the tiles of the canvas holding a changed cell are copied to the window, with neighbouring
+ * dirty tiles in a row copied together. The first frame after init() or drawArea() is shown whole.
+ *
+ * @author agent
+ */
+public class StdDrawRenderer extends RasterRenderer {
+	public static final int DEFAULT_TILE_CELLS = 8;
+
+	private final int tileCells;
+	private int tilesPerRow;
+	private boolean[] dirty;
+	private int[] dirtyTiles;
+	private int dirtyCount = 0;
+
+	/**
+	 * Constructor
+	 */
+	public StdDrawRenderer() {
+		this(DEFAULT_TILE_CELLS);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param tileCells int width in lattice cells of the tiles changes are copied to the window in
+	 */
+	public StdDrawRenderer(int tileCells) {
+		if (tileCells < 1) {
+			throw new IllegalArgumentException("tileCells must be positive: " + tileCells);
+		}
+
+		this.tileCells = tileCells;
+	}
+
+	@Override
+	public void init(int n) {
+		reset(n);
+		tilesPerRow = (2 * n + 1 + tileCells - 1) / tileCells;
+		dirty = new boolean[tilesPerRow * tilesPerRow];
+		dirtyTiles = new int[dirty.length];
+		dirtyCount = 0;
+
+        //setup background with StdDraw
+        StdDraw.setScale(-n - 0.5, n + 0.5);
+        StdDraw.clear(StdDraw.GRAY); //background color
+        StdDraw.enableDoubleBuffering();
+
+        StdDraw.show();
+	}
+
+	@Override
+	public void show() {
+		if (fullFrame) {
+			StdDraw.show();
+			fullFrame = false;
+		} else {
+			showDirtyTiles();
+		}
+
+		for (int i = 0; i < dirtyCount; i++) {
+			dirty[dirtyTiles[i]] = false;
+		}
+
+		dirtyCount = 0;
+	}
+
+	@Override
+	public void close() {
+	}
+
+	@Override
+	protected void fillCell(int x, int y, int argb) {
+		StdDraw.rasterSquare(x, y, 0.5, argb);
+		markDirty(x, y);
+	}
+
+	@Override
+	protected void outline(RWBoundary area) {
+        StdDraw.setPenColor(StdDraw.WHITE);
+        StdDraw.square(area.center.x, area.center.y, area.bound);
+	}
+
+	private void markDirty(int x, int y) {
+		int column = x + n, row = y + n;
+
+		if (column < 0 || row < 0 || column > 2 * n || row > 2 * n) {
+			return; //off the canvas
+		}
+
+		int tile = (row / tileCells) * tilesPerRow + column / tileCells;
+
+		if (!dirty[tile]) {
+			dirty[tile] = true;
+			dirtyTiles[dirtyCount++] = tile;
+		}
+	}
+
+	// copy each run of neighbouring dirty tiles in a row as one rectangle
+	private void showDirtyTiles() {
+		Arrays.sort(dirtyTiles, 0, dirtyCount);
+
+		for (int i = 0; i < dirtyCount; ) {
+			int first = dirtyTiles[i];
+			int last = first;
+
+			while (++i < dirtyCount && dirtyTiles[i] == last + 1 && dirtyTiles[i] / tilesPerRow == first / tilesPerRow) {
+				last = dirtyTiles[i];
+			}
+
+			int row = first / tilesPerRow;
+			double left = (first % tilesPerRow) * tileCells - n - 0.5;
+			double right = (last % tilesPerRow + 1) * tileCells - n - 0.5;
+			double bottom = row * tileCells - n - 0.5;
+
+			StdDraw.show(left, bottom, right, bottom + tileCells);
+		}
+	}
+}
@@ -0,0 +1,72 @@
+/**
+ * Title: TraceContext.java
+ * Function:
+ * Identifies a message as it moves through the stages of a CSO and times each hop.
+ * History:
+ *  Date         Author              Changes
+ *  10.17.2026   agent@local         initial
+**/
+
+package edu.uwm.basecso;
+
+/**
+ * Follows one report from the object that sent it, through every stage of a CSO, to the
+ * directive that comes back, so the round trip and each stage's share of it can be measured.
+ *
+ * Times are CSOClock timestamps, so they can only be compared within one JVM.
+ * A context is handed from stage to stage along with the item it traces and is only
+ * touched by one stage at a time.
+ *
+ * @author agent
+ */
+public final class TraceContext {
+    public final long originId;
+    public final long sequence;
+    public final long originNanos;
+    private long markNanos;
+
+    /**
+     * Constructor that starts the trace now.
+     *
+     * @param originId long identifier of the object that sent the traced message
+     * @param sequence long number of the message among those sent by the same object
+     */
+    public TraceContext(long originId, long sequence) {
+        this(originId, sequence, CSOClock.nanoTime());
+    }
+
+    /**
+     * Constructor
+     *
+     * @param originId long identifier of the object that sent the traced message
+     * @param sequence long number of the message among those sent by the same object
+     * @param originNanos long CSOClock time when the message was sent
+     */
+    public TraceContext(long originId, long sequence, long originNanos) {
+        this.originId = originId;
+        this.sequence = sequence;
+        this.originNanos = originNanos;
+        this.markNanos = originNanos;
+    }
+
+    /**
+     * Marks the end of a hop.
+     *
+     * @param nowNanos long CSOClock time at the end of the hop
+     * @return long nanoseconds since the previous mark, or since the message was sent
+     */
+    public long mark(long nowNanos) {
+        long hop = nowNanos - markNanos;
+        markNanos = nowNanos;
+        return hop;
+    }
+
+    /**
+     * @param nowNanos long CSOClock time
+     * @return long nanoseconds since the message was sent
+     */
+    public long elapsed(long nowNanos) {
+        return nowNanos - originNanos;
+    }
+
+}
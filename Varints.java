@@ -0,0 +1,110 @@
+/**
+ * Title: Varints.java
+ * Function:
+ * Variable length integer encoding for binary messages.
+ * History:
+ *  Date         Author              Changes
+ *  10.17.2026   agent@local         initial
+**/
+
+package edu.uwm.basecso;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reads and writes longs as varints: seven bits to a byte, lowest bits first, with the top bit
+ * of each byte set when another byte follows. Small values take one byte and no value takes more
+ * than ten, whatever the byte order of the buffer.
+ *
+ * Values that may be negative, such as coordinates and time differences, are written zigzag encoded
+ * so that small negative values are short too.
+ *
+ * @author agent
+ */
+public final class Varints {
+    public static final int MAX_BYTES = 10;
+
+    private Varints() {
+    }
+
+    /**
+     * Writes a value as an unsigned varint.
+     *
+     * @param out ByteBuffer to write to
+     * @param value long to write, negative values take the full ten bytes
+     * @throws java.nio.BufferOverflowException if the buffer fills up
+     */
+    public static void putVarLong(ByteBuffer out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+
+        out.put((byte) value);
+    }
+
+    /**
+     * Reads an unsigned varint.
+     *
+     * @param in ByteBuffer to read from
+     * @return long value read
+     * @throws IllegalArgumentException if the varint is longer than ten bytes
+     * @throws java.nio.BufferUnderflowException if the buffer ends in the middle of the varint
+     */
+    public static long getVarLong(ByteBuffer in) {
+        long value = 0;
+
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+
+            if (b >= 0) {
+                return value;
+            }
+        }
+
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    /**
+     * Writes a signed value as a zigzag encoded varint.
+     *
+     * @param out ByteBuffer to write to
+     * @param value long to write
+     * @throws java.nio.BufferOverflowException if the buffer fills up
+     */
+    public static void putZigZag(ByteBuffer out, long value) {
+        putVarLong(out, (value << 1) ^ (value >> 63));
+    }
+
+    /**
+     * Reads a zigzag encoded varint.
+     *
+     * @param in ByteBuffer to read from
+     * @return long value read
+     * @throws IllegalArgumentException if the varint is longer than ten bytes
+     * @throws java.nio.BufferUnderflowException if the buffer ends in the middle of the varint
+     */
+    public static long getZigZag(ByteBuffer in) {
+        long encoded = getVarLong(in);
+
+        return (encoded >>> 1) ^ -(encoded & 1);
+    }
+
+    /**
+     * Reads a zigzag encoded varint that must fit in an int.
+     *
+     * @param in ByteBuffer to read from
+     * @return int value read
+     * @throws IllegalArgumentException if the value does not fit in an int
+     */
+    public static int getZigZagInt(ByteBuffer in) {
+        long value = getZigZag(in);
+
+        if (value != (int) value) {
+            throw new IllegalArgumentException("Varint out of int range: " + value);
+        }
+
+        return (int) value;
+    }
+}
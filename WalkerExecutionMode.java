@@ -0,0 +1,19 @@
+package edu.uwm.cs790.assignment9;
+
+/**
+ * Selects how a {@link RandomWalkController} runs its walkers.
+ * 
+ * {@link #PLATFORM_THREAD} gives every walker its own platform thread that sleeps between steps, which limits a run to a few thousand walkers.
+ * {@link #SCHEDULED_EXECUTOR} runs every step as a short task on a small shared scheduler, so an idle walker costs no thread at all.
+ * {@link #VIRTUAL_THREAD} gives every walker its own virtual thread when the JVM provides them and otherwise falls back to {@link #SCHEDULED_EXECUTOR}.
+ * {@link #TICK} advances every walker from one {@link RWTickScheduler} loop and reports their positions to the monitor in one batch per tick,
+ * then waits for the monitor's answers, so it is the only mode where a run with the same seed reproduces the same trajectories.
+ * 
+ * @author agent
+ */
+public enum WalkerExecutionMode {
+	PLATFORM_THREAD,
+	SCHEDULED_EXECUTOR,
+	VIRTUAL_THREAD,
+	TICK
+}
@@ -0,0 +1,77 @@
+package edu.uwm.cs790.assignment9;
+
+import edu.uwm.basecso.CSOMessage;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures a round trip through one {@link DualExchangeProcessor} stage running on its own thread:
+ * the benchmark thread hands a batch to the stage, the stage moves it to its outbound queue,
+ * and the benchmark thread takes the batch back. With a trivial stage function this is the cost of the two handoffs.
+ * 
+ * @author agent
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HandoffBenchmark {
+	@Param({"EXCHANGER", "RING_BUFFER"})
+	HandoffMode mode;
+
+	@Param({"16", "256", "4096"})
+	int batchSize;
+
+	@Param({"100"})
+	int walkerCount;
+
+	private StageHandoff<Queue<CSOMessage>> inbound;
+	private StageHandoff<Queue<CSOMessage>> outbound;
+	private CSOMessage[] positions;
+	private Queue<CSOMessage> batch = new ArrayDeque<>();
+	private Queue<CSOMessage> result = new ArrayDeque<>();
+
+	@Setup
+	public void setUp() {
+		Logger.setEnabled(false);
+
+		positions = new PipelineFixtures(walkerCount).positionMessages(batchSize);
+		inbound = mode.newHandoff(ArrayDeque::new);
+		outbound = mode.newHandoff(ArrayDeque::new);
+
+		DualExchangeProcessor<Queue<CSOMessage>, Queue<CSOMessage>> processor = new DualExchangeProcessor<>(inbound, outbound, (in, out) -> {
+			out.addAll(in);
+			in.clear();
+			return out;
+		});
+
+		Thread stage = new Thread(() -> processor.startExchange(new ArrayDeque<>(), new ArrayDeque<>()), "Benchmark Stage Thread");
+		stage.setDaemon(true);
+		stage.start();
+	}
+
+	@Benchmark
+	public int roundTrip() throws InterruptedException {
+		batch = inbound.publish(PipelineFixtures.fill(batch, positions));
+		result = outbound.take(result);
+
+		int size = result.size();
+		result.clear();
+
+		return size;
+	}
+}
@@ -0,0 +1,78 @@
+package edu.uwm.cs790.assignment9;
+
+import edu.uwm.basecso.CSOMessage;
+import edu.uwm.basecso.CSOMessageCodec;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures writing a batch of position reports with the {@link CSOMessageCodec} into one buffer,
+ * and reading them back, resolving senders by identifier.
+ *
+ * @author agent
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageCodecBenchmark {
+	@Param({"256", "4096"})
+	int batchSize;
+
+	@Param({"100"})
+	int walkerCount;
+
+	private CSOMessageCodec codec;
+	private CSOMessage[] positions;
+	private ByteBuffer buffer;
+	private ByteBuffer encoded;
+
+	@Setup
+	public void setUp() {
+		PipelineFixtures fixtures = new PipelineFixtures(walkerCount);
+
+		codec = new CSOMessageCodec(RWOrderCodecs.newRegistry(), id -> fixtures.walkers[(int) id]);
+		positions = fixtures.positionMessages(batchSize);
+		buffer = ByteBuffer.allocateDirect(batchSize * 64);
+
+		encode();
+		encoded = buffer.duplicate();
+		encoded.flip();
+	}
+
+	@Benchmark
+	public ByteBuffer encode() {
+		buffer.clear();
+
+		for (CSOMessage message : positions) {
+			codec.encode(message, buffer);
+		}
+
+		return buffer;
+	}
+
+	@Benchmark
+	public CSOMessage decode() {
+		ByteBuffer in = encoded.duplicate();
+		CSOMessage last = null;
+
+		while (in.hasRemaining()) {
+			last = codec.decode(in);
+		}
+
+		return last;
+	}
+}
@@ -0,0 +1,111 @@
+package edu.uwm.cs790.assignment9;
+
+import edu.uwm.basecso.CSOMessage;
+import edu.uwm.basecso.CyberspatialLocation;
+import edu.uwm.basecso.GeospatialCoordinates;
+import edu.uwm.basecso.InfospatialCoordinates;
+import edu.uwm.basecso.OverflowPolicy;
+import edu.uwm.basecso.SociospatialCoordinates;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the whole {@link CSORandomWalkMonitor} pipeline end to end: one operation sends a batch of
+ * position reports to the monitor and waits until the executor has handled a plan for every report,
+ * either sending the directive to its walker or suppressing it because it did not change.
+ * 
+ * The monitor's ingress loop parks only while it has nothing to hand on, so every batch size measures
+ * the stages and handoffs rather than a pause. StageBenchmark measures each stage on its own.
+ * 
+ * @author agent
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MonitorPipelineBenchmark {
+	private static final long TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+	@Param({"EXCHANGER", "RING_BUFFER"})
+	HandoffMode mode;
+
+	@Param({"16", "256", "4096"})
+	int batchSize;
+
+	@Param({"100", "10000"})
+	int walkerCount;
+
+	private PipelineFixtures fixtures;
+	private CSORandomWalkMonitor monitor;
+	private RWPlanExecutor executor;
+	private CSOMessage[] positions;
+
+	@Setup
+	public void setUp() {
+		Logger.setEnabled(false);
+
+		fixtures = new PipelineFixtures(walkerCount);
+		positions = fixtures.positionMessages(batchSize);
+
+		executor = new RWPlanExecutor();
+		RWPlanGenerator generator = new RWPlanGenerator(executor);
+		RWSituationAssessor assessor = new RWSituationAssessor(generator);
+		CyberspatialLocation location = new CyberspatialLocation(new GeospatialCoordinates(0,0,0), new InfospatialCoordinates(0,0,0), new SociospatialCoordinates(0,0,0));
+
+		int capacity = Math.max(walkerCount, batchSize) * 2;
+		monitor = new CSORandomWalkMonitor(-1, location, assessor, generator, executor, mode, capacity, OverflowPolicy.BLOCK);
+		monitor.setBlockTimeout(TIMEOUT_NANOS, TimeUnit.NANOSECONDS);
+		monitor.enable();
+
+		sendAndAwait(fixtures.boundaryMessages());
+	}
+
+	@TearDown
+	public void tearDown() {
+		monitor.disable();
+	}
+
+	@Benchmark
+	public long pipeline() {
+		return sendAndAwait(positions);
+	}
+
+	private long sendAndAwait(CSOMessage[] messages) {
+		long target = executed() + messages.length;
+
+		for (CSOMessage message : messages) {
+			monitor.receiveMessage(message);
+		}
+
+		long deadline = System.nanoTime() + TIMEOUT_NANOS;
+		long executed;
+
+		while ((executed = executed()) < target) {
+			if (System.nanoTime() > deadline) {
+				throw new IllegalStateException("pipeline executed " + executed + " of " + target + " plans");
+			}
+
+			LockSupport.parkNanos(10_000);
+		}
+
+		return fixtures.delivered.get();
+	}
+
+	private long executed() {
+		return executor.getSentDirectiveCount() + executor.getSuppressedDirectiveCount() + executor.getFailedDirectiveCount();
+	}
+}
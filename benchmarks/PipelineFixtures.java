@@ -0,0 +1,140 @@
+package edu.uwm.cs790.assignment9;
+
+import edu.uwm.basecso.CSOClock;
+import edu.uwm.basecso.CSOMessage;
+import edu.uwm.basecso.CSOPayload;
+import edu.uwm.basecso.Messageable;
+import java.awt.Point;
+import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Builds the walkers and messages shared by the pipeline benchmarks.
+ * 
+ * Walkers are lightweight {@link Messageable} stand-ins that only count the directives they receive,
+ * so the benchmarks measure the pipeline and not the walk.
+ * 
+ * @author agent
+ */
+final class PipelineFixtures {
+	static final int AREA_SIZE = 5;
+	static final long SEED = 790;
+
+	final BenchmarkWalker[] walkers;
+	final RWBoundary[] boundaries;
+	final AtomicLong delivered = new AtomicLong();
+
+	PipelineFixtures(int walkerCount) {
+		walkers = new BenchmarkWalker[walkerCount];
+		boundaries = new RWBoundary[walkerCount];
+
+		for (int i = 0; i < walkerCount; i++) {
+			walkers[i] = new BenchmarkWalker(i, delivered);
+			boundaries[i] = new RWBoundary(AREA_SIZE, new Point((i % 100) * 20, (i / 100) * 20));
+		}
+	}
+
+	/**
+	 * @return one boundary registration per walker
+	 */
+	CSOMessage[] boundaryMessages() {
+		CSOMessage[] messages = new CSOMessage[walkers.length];
+
+		for (int i = 0; i < walkers.length; i++) {
+			messages[i] = message(walkers[i], boundaries[i]);
+		}
+
+		return messages;
+	}
+
+	/**
+	 * @param batchSize int number of messages
+	 * @return position reports spread over the walkers, each inside or just outside its walker's boundary
+	 */
+	CSOMessage[] positionMessages(int batchSize) {
+		SplittableRandom random = new SplittableRandom(SEED);
+		CSOMessage[] messages = new CSOMessage[batchSize];
+
+		for (int i = 0; i < batchSize; i++) {
+			int w = i % walkers.length;
+			Point center = boundaries[w].center;
+			Point p = new Point(center.x + random.nextInt(-AREA_SIZE, AREA_SIZE + 1), center.y + random.nextInt(-AREA_SIZE, AREA_SIZE + 1));
+
+			messages[i] = message(walkers[w], p);
+		}
+
+		return messages;
+	}
+
+	/**
+	 * @param batchSize int number of assessments
+	 * @return assessments spread over the walkers
+	 */
+	RWAssessment[] assessments(int batchSize) {
+		RWAssessment[] assessments = new RWAssessment[batchSize];
+
+		for (int i = 0; i < batchSize; i++) {
+			assessments[i] = new RWAssessment(RWDirectives.fromMask(i), walkers[i % walkers.length]);
+		}
+
+		return assessments;
+	}
+
+	/**
+	 * @param batchSize int number of plans
+	 * @param maskOffset int added to each plan's directive mask, so plan sets with different offsets give walkers different directives
+	 * @return plans spread over the walkers
+	 */
+	RWPlan[] plans(int batchSize, int maskOffset) {
+		RWPlan[] plans = new RWPlan[batchSize];
+
+		for (int i = 0; i < batchSize; i++) {
+			plans[i] = new RWPlan(RWDirectives.fromMask(i + maskOffset), walkers[i % walkers.length]);
+		}
+
+		return plans;
+	}
+
+	static <T> Queue<T> fill(Queue<T> queue, T[] items) {
+		for (T item : items) {
+			queue.add(item);
+		}
+
+		return queue;
+	}
+
+	private CSOMessage message(Messageable from, Object order) {
+		long now = CSOClock.nanoTime();
+		return new CSOMessage(from, null, null, new CSOPayload<>(order, 0, now, now), now);
+	}
+
+	/**
+	 * Stand-in for a RandomWalker that counts delivered directives.
+	 */
+	static final class BenchmarkWalker implements Messageable {
+		private final long identifier;
+		private final AtomicLong delivered;
+		volatile RWDirectives directives = RWDirectives.ALL;
+
+		BenchmarkWalker(long identifier, AtomicLong delivered) {
+			this.identifier = identifier;
+			this.delivered = delivered;
+		}
+
+		@Override
+		public long getIdentifier() {
+			return identifier;
+		}
+
+		@Override
+		public boolean receiveMessage(CSOMessage message) {
+			if (message.payload != null) {
+				directives = (RWDirectives) message.payload.order;
+				delivered.incrementAndGet();
+			}
+
+			return true;
+		}
+	}
+}
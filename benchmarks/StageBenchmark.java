@@ -0,0 +1,133 @@
+package edu.uwm.cs790.assignment9;
+
+import edu.uwm.basecso.CSOMessage;
+import java.util.ArrayDeque;
+import java.util.LinkedList;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures each of the seven pipeline stages on its own, processing one batch per operation
+ * on the benchmark thread with no handoff to a neighbouring stage.
+ * 
+ * The execute stage alternates between two plan sets with different directives, so every
+ * operation sends directives rather than suppressing them as unchanged.
+ * 
+ * @author agent
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StageBenchmark {
+	@Param({"16", "256", "4096"})
+	int batchSize;
+
+	@Param({"100", "10000"})
+	int walkerCount;
+
+	private RWSituationAssessor.RWFilterProcess filter;
+	private RWSituationAssessor.RWTriageProcess triage;
+	private RWSituationAssessor.RWAnalysisProcess analysis;
+	private RWPlanGenerator.RWPolicyProcess policy;
+	private RWPlanGenerator.RWResourceProcess resource;
+	private RWPlanExecutor.RWCommandProcess command;
+	private RWPlanExecutor.RWExecuteProcess execute;
+
+	private CSOMessage[] positions;
+	private RWAssessment[] assessments;
+	private RWPlan[] plans;
+	private RWPlan[] changedPlans;
+	private boolean executeChanged = false;
+
+	private final Queue<CSOMessage> messagesIn = new ArrayDeque<>();
+	private final Queue<CSOMessage> messagesOut = new ArrayDeque<>();
+	private final Queue<RWAssessment> assessmentsIn = new ArrayDeque<>();
+	private final Queue<RWAssessment> assessmentsOut = new ArrayDeque<>();
+	private final Queue<RWPlan> plansIn = new ArrayDeque<>();
+	private final Queue<RWPlan> plansOut = new ArrayDeque<>();
+
+	@Setup
+	public void setUp() {
+		Logger.setEnabled(false);
+
+		PipelineFixtures fixtures = new PipelineFixtures(walkerCount);
+		positions = fixtures.positionMessages(batchSize);
+		assessments = fixtures.assessments(batchSize);
+		plans = fixtures.plans(batchSize, 0);
+		changedPlans = fixtures.plans(batchSize, 1);
+
+		RWPlanExecutor executor = new RWPlanExecutor();
+		RWPlanGenerator generator = new RWPlanGenerator(executor);
+		RWSituationAssessor assessor = new RWSituationAssessor(generator);
+		HandoffMode mode = HandoffMode.RING_BUFFER;
+
+		filter = assessor.new RWFilterProcess(mode.newHandoff(LinkedList::new));
+		triage = assessor.new RWTriageProcess(mode.newHandoff(LinkedList::new));
+		analysis = assessor.new RWAnalysisProcess(mode.newHandoff(LinkedList::new));
+		policy = generator.new RWPolicyProcess(mode.newHandoff(LinkedList::new));
+		resource = generator.new RWResourceProcess(mode.newHandoff(LinkedList::new));
+		command = executor.new RWCommandProcess(mode.newHandoff(LinkedList::new));
+		execute = executor.new RWExecuteProcess(mode.newHandoff(LinkedList::new));
+
+		// the analysis stage needs every walker's boundary before it sees positions
+		analysis.analyze(PipelineFixtures.fill(messagesIn, fixtures.boundaryMessages()), assessmentsOut);
+		assessmentsOut.clear();
+	}
+
+	@Benchmark
+	public Queue<CSOMessage> filter() {
+		messagesOut.clear();
+		return filter.doFiltering(PipelineFixtures.fill(messagesIn, positions), messagesOut);
+	}
+
+	@Benchmark
+	public Queue<CSOMessage> triage() {
+		messagesOut.clear();
+		return triage.triageEvents(PipelineFixtures.fill(messagesIn, positions), messagesOut);
+	}
+
+	@Benchmark
+	public Queue<RWAssessment> analysis() {
+		assessmentsOut.clear();
+		return analysis.analyze(PipelineFixtures.fill(messagesIn, positions), assessmentsOut);
+	}
+
+	@Benchmark
+	public Queue<RWPlan> policy() {
+		plansOut.clear();
+		return policy.checkPolicies(PipelineFixtures.fill(assessmentsIn, assessments), plansOut);
+	}
+
+	@Benchmark
+	public Queue<RWPlan> resource() {
+		plansOut.clear();
+		return resource.checkResources(PipelineFixtures.fill(plansIn, plans), plansOut);
+	}
+
+	@Benchmark
+	public Queue<RWPlan> command() {
+		plansOut.clear();
+		return command.authorizePlans(PipelineFixtures.fill(plansIn, plans), plansOut);
+	}
+
+	@Benchmark
+	public Queue<RWPlan> execute() {
+		executeChanged = !executeChanged;
+		execute.executePlans(PipelineFixtures.fill(plansIn, executeChanged ? changedPlans : plans));
+		return plansIn;
+	}
+}